@@ -0,0 +1,133 @@
+package com.vodotiiets.benchmark;
+
+import com.vodotiiets.HashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups and a mixed workload on a filled generic map. Keys are boxed up front,
+ * so the loops allocate only what the maps themselves allocate.
+ *
+ * Created by Denys Vodotiiets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GenericMapBenchmark {
+
+    private static final int LOOKUPS = 1 << 16;
+
+    private static final byte GET = 0;
+    private static final byte UPDATE = 1;
+    private static final byte REPLACE = 2;
+
+    @Param({"1000", "100000", "10000000", "100000000"})
+    int size;
+
+    @Param({"0.5", "0.75", "0.9"})
+    float loadFactor;
+
+    @Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN"})
+    KeyDistribution distribution;
+
+    @Param({"LINEAR", "ROBIN_HOOD", "INCREMENTAL", "FLAT", "SWISS_TABLE", "JDK"})
+    GenericMaps implementation;
+
+    private HashMap<Integer, Long> map;
+    private Integer[] hits;
+    private Integer[] misses;
+    private Long[] values;
+    private byte[] operations;
+
+    @Setup
+    public void setUp() {
+        map = implementation.create(size, loadFactor);
+        for (int i = 0; i < size; i++) {
+            map.put(distribution.key(i), (long)i);
+        }
+
+        hits = box(distribution.lookups(size, LOOKUPS, 42));
+        misses = box(distribution.keys(size, LOOKUPS));
+
+        // 80% get, 10% update, 10% remove and put back, so the size stays the same
+        Random random = new Random(42);
+        values = new Long[LOOKUPS];
+        operations = new byte[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            values[i] = (long)i;
+            int dice = random.nextInt(10);
+            operations[i] = dice < 8 ? GET : dice == 8 ? UPDATE : REPLACE;
+        }
+    }
+
+    private static Integer[] box(int[] keys) {
+        Integer[] boxed = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            boxed[i] = keys[i];
+        }
+        return boxed;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int getHit() {
+        int found = 0;
+        for (Integer key : hits) {
+            if (map.get(key) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int getMiss() {
+        int found = 0;
+        for (Integer key : misses) {
+            if (map.get(key) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int mixed() {
+        int found = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            Integer key = hits[i];
+            switch (operations[i]) {
+                case GET:
+                    if (map.get(key) != null) {
+                        found++;
+                    }
+                    break;
+                case UPDATE:
+                    map.put(key, values[i]);
+                    break;
+                default:
+                    map.remove(key);
+                    map.put(key, values[i]);
+            }
+        }
+        return found;
+    }
+}
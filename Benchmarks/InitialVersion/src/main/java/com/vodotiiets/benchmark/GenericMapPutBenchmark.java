@@ -0,0 +1,64 @@
+package com.vodotiiets.benchmark;
+
+import com.vodotiiets.HashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills an empty, presized generic map with <tt>size</tt> boxed keys.
+ *
+ * Created by Denys Vodotiiets.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class GenericMapPutBenchmark {
+
+    @Param({"1000", "100000", "10000000", "100000000"})
+    int size;
+
+    @Param({"0.5", "0.75", "0.9"})
+    float loadFactor;
+
+    @Param({"SEQUENTIAL", "UNIFORM"})
+    KeyDistribution distribution;
+
+    @Param({"LINEAR", "ROBIN_HOOD", "INCREMENTAL", "FLAT", "SWISS_TABLE", "JDK"})
+    GenericMaps implementation;
+
+    private Integer[] keys;
+    private Long[] values;
+
+    @Setup
+    public void setUp() {
+        keys = new Integer[size];
+        values = new Long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = distribution.key(i);
+            values[i] = (long)i;
+        }
+    }
+
+    @Benchmark
+    public HashMap<Integer, Long> put() {
+        HashMap<Integer, Long> map = implementation.create(size, loadFactor);
+        for (int i = 0; i < size; i++) {
+            map.put(keys[i], values[i]);
+        }
+        return map;
+    }
+}
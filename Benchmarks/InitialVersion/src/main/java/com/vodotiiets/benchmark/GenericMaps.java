@@ -0,0 +1,129 @@
+package com.vodotiiets.benchmark;
+
+import com.vodotiiets.FlatOpenAddressingHashMap;
+import com.vodotiiets.HashMap;
+import com.vodotiiets.HashMixer;
+import com.vodotiiets.OpenAddressingHashMap;
+import com.vodotiiets.ProbingPolicy;
+import com.vodotiiets.ResizePolicy;
+import com.vodotiiets.SwissTableHashMap;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * The benchmarked generic map implementations. The maps are sized so that they
+ * hold the requested number of mappings without growing.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public enum GenericMaps {
+
+    /**
+     * {@link OpenAddressingHashMap} with linear probing.
+     */
+    LINEAR {
+        public HashMap<Integer, Long> create(int capacity, float loadFactor) {
+            return new OpenAddressingHashMap<>(tableSize(capacity, loadFactor), loadFactor,
+                    HashMixer.SPREAD, 0, ProbingPolicy.LINEAR);
+        }
+    },
+
+    /**
+     * {@link OpenAddressingHashMap} with Robin Hood probing.
+     */
+    ROBIN_HOOD {
+        public HashMap<Integer, Long> create(int capacity, float loadFactor) {
+            return new OpenAddressingHashMap<>(tableSize(capacity, loadFactor), loadFactor,
+                    HashMixer.SPREAD, 0, ProbingPolicy.ROBIN_HOOD);
+        }
+    },
+
+    /**
+     * {@link OpenAddressingHashMap} with linear probing and incremental resizing.
+     */
+    INCREMENTAL {
+        public HashMap<Integer, Long> create(int capacity, float loadFactor) {
+            return new OpenAddressingHashMap<>(tableSize(capacity, loadFactor), loadFactor,
+                    HashMixer.SPREAD, 0, ProbingPolicy.LINEAR, ResizePolicy.INCREMENTAL);
+        }
+    },
+
+    /**
+     * {@link FlatOpenAddressingHashMap}, with cached hashes and no nodes.
+     */
+    FLAT {
+        public HashMap<Integer, Long> create(int capacity, float loadFactor) {
+            return new FlatOpenAddressingHashMap<>(tableSize(capacity, loadFactor), loadFactor,
+                    HashMixer.SPREAD, 0);
+        }
+    },
+
+    /**
+     * {@link SwissTableHashMap}, whose load factor is fixed at 7/8.
+     */
+    SWISS_TABLE {
+        public HashMap<Integer, Long> create(int capacity, float loadFactor) {
+            return new SwissTableHashMap<>(capacity);
+        }
+    },
+
+    /**
+     * <tt>java.util.HashMap</tt>.
+     */
+    JDK {
+        public HashMap<Integer, Long> create(int capacity, float loadFactor) {
+            final java.util.HashMap<Integer, Long> map =
+                    new java.util.HashMap<>(tableSize(capacity, loadFactor), loadFactor);
+
+            return new HashMap<Integer, Long>() {
+                public int size() {
+                    return map.size();
+                }
+
+                public boolean put(Integer key, Long value) {
+                    map.put(key, value);
+                    return true;
+                }
+
+                public boolean putOnlyIfAbsent(Integer key, Long value) {
+                    return map.putIfAbsent(key, value) == null;
+                }
+
+                public Long get(Object key) {
+                    return map.get(key);
+                }
+
+                public boolean remove(Object key) {
+                    return map.remove(key) != null;
+                }
+
+                public void forEach(BiConsumer<? super Integer, ? super Long> action) {
+                    map.forEach(action);
+                }
+
+                public Set<Integer> keySet() {
+                    return map.keySet();
+                }
+
+                public Collection<Long> values() {
+                    return map.values();
+                }
+            };
+        }
+    };
+
+    /**
+     * Creates an empty map able to hold the given number of mappings.
+     *
+     * @param capacity the expected number of mappings
+     * @param loadFactor the load factor
+     * @return the map
+     */
+    public abstract HashMap<Integer, Long> create(int capacity, float loadFactor);
+
+    private static int tableSize(int capacity, float loadFactor) {
+        return (int)(capacity / loadFactor) + 1;
+    }
+}
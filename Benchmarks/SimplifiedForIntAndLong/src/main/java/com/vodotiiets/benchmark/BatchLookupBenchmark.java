@@ -0,0 +1,87 @@
+package com.vodotiiets.benchmark;
+
+import com.vodotiiets.OpenAddressingHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batched lookups on {@link OpenAddressingHashMap}: <tt>getAll</tt> against a loop
+ * of <tt>getOrDefault</tt> over the same keys, half of which are missing.
+ *
+ * Created by Denys Vodotiiets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BatchLookupBenchmark {
+
+    private static final int LOOKUPS = 1 << 16;
+
+    @Param({"100000", "10000000"})
+    int size;
+
+    @Param({"64", "256", "1024"})
+    int batchSize;
+
+    private OpenAddressingHashMap map;
+    private int[][] batches;
+    private long[] values;
+    private long[] missing;
+
+    @Setup
+    public void setUp() {
+        KeyDistribution distribution = KeyDistribution.UNIFORM;
+        map = new OpenAddressingHashMap(size);
+        for (int i = 0; i < size; i++) {
+            map.put(distribution.key(i), i);
+        }
+
+        // half hits, half misses
+        int[] lookups = distribution.lookups(size * 2, LOOKUPS, 42);
+        batches = new int[LOOKUPS / batchSize][batchSize];
+        for (int i = 0; i < LOOKUPS; i++) {
+            batches[i / batchSize][i % batchSize] = lookups[i];
+        }
+        values = new long[batchSize];
+        missing = new long[(batchSize + 63) / 64];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getAll() {
+        long found = 0;
+        for (int[] batch : batches) {
+            found += map.getAll(batch, values, missing);
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getLoop() {
+        long found = 0;
+        for (int[] batch : batches) {
+            for (int i = 0; i < batch.length; i++) {
+                if ((values[i] = map.getOrDefault(batch[i], Long.MIN_VALUE)) != Long.MIN_VALUE) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+}
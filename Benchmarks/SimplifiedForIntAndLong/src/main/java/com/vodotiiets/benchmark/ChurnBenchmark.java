@@ -0,0 +1,87 @@
+package com.vodotiiets.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup latency under sustained insert/delete churn. Before every iteration the map
+ * slides its window of keys forward by <tt>CHURN</tt> removals and insertions, so its
+ * size stays the same. Tombstones or long clusters left behind by removals show up as
+ * a score that grows from iteration to iteration.
+ *
+ * Created by Denys Vodotiiets.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 20, time = 1)
+public class ChurnBenchmark {
+
+    private static final int CHURN = 1 << 20;
+    private static final int LOOKUPS = 1 << 10;
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    @Param({"0.75", "0.9"})
+    float loadFactor;
+
+    @Param({"OPEN_ADDRESSING", "CUCKOO", "JDK", "FASTUTIL"})
+    IntLongMaps implementation;
+
+    private final KeyDistribution distribution = KeyDistribution.UNIFORM;
+    private final Random random = new Random(42);
+
+    private IntLongMap map;
+    private int windowStart;
+    private int[] hits;
+
+    @Setup
+    public void fill() {
+        map = implementation.create(size, loadFactor);
+        for (int i = 0; i < size; i++) {
+            map.put(distribution.key(i), i);
+        }
+        windowStart = 0;
+    }
+
+    @Setup(Level.Iteration)
+    public void churn() {
+        for (int i = 0; i < CHURN; i++) {
+            map.remove(distribution.key(windowStart));
+            map.put(distribution.key(windowStart + size), i);
+            windowStart++;
+        }
+
+        hits = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            hits[i] = distribution.key(windowStart + random.nextInt(size));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getHit() {
+        long sum = 0;
+        for (int key : hits) {
+            sum += map.get(key, -1);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,108 @@
+package com.vodotiiets.benchmark;
+
+import com.vodotiiets.ConcurrentOpenAddressingHashMap;
+import com.vodotiiets.OpenAddressingHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a shared map under 90% get / 10% put from 1 to 8 threads,
+ * {@link ConcurrentOpenAddressingHashMap} against a synchronized
+ * {@link OpenAddressingHashMap}.
+ *
+ * Created by Denys Vodotiiets.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ConcurrentScalingBenchmark {
+
+    public enum Implementation {
+        SYNCHRONIZED,
+        CONCURRENT
+    }
+
+    @Param({"1000000"})
+    int size;
+
+    @Param({"SYNCHRONIZED", "CONCURRENT"})
+    Implementation implementation;
+
+    private IntLongMap map;
+
+    @Setup
+    public void setUp() {
+        if (implementation == Implementation.CONCURRENT) {
+            map = new IntLongMaps.Adapter(new ConcurrentOpenAddressingHashMap(size, 0.75f, 64));
+        } else {
+            final IntLongMap unsafe = new IntLongMaps.Adapter(new OpenAddressingHashMap(size, 0.75f));
+            map = new IntLongMap() {
+                public synchronized void put(int key, long value) {
+                    unsafe.put(key, value);
+                }
+
+                public synchronized long get(int key, long missingValue) {
+                    return unsafe.get(key, missingValue);
+                }
+
+                public synchronized void remove(int key) {
+                    unsafe.remove(key);
+                }
+            };
+        }
+
+        for (int i = 0; i < size; i++) {
+            map.put(KeyDistribution.UNIFORM.key(i), i);
+        }
+    }
+
+    private long operation() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int key = KeyDistribution.UNIFORM.key(random.nextInt(size));
+        if (random.nextInt(10) == 0) {
+            map.put(key, key);
+            return 0;
+        }
+        return map.get(key, -1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long threads1() {
+        return operation();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public long threads2() {
+        return operation();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long threads4() {
+        return operation();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long threads8() {
+        return operation();
+    }
+}
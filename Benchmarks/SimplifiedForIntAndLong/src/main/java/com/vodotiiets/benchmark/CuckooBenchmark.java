@@ -0,0 +1,90 @@
+package com.vodotiiets.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cuckoo hashing against linear probing at equal memory. Both maps get a table of
+ * exactly <tt>2^log2Slots</tt> slots of 12 bytes, filled to the load factor, so the
+ * scores compare lookups in the same space. Sampled, so the percentiles show how the
+ * bounded cuckoo lookup and the probe sequences of linear probing behave as the load
+ * approaches 0.95.
+ *
+ * Created by Denys Vodotiiets.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class CuckooBenchmark {
+
+    private static final int LOOKUPS = 1 << 10;
+
+    /**
+     * The mappings short of the load factor, so that rounding never lets
+     * either map round its table up to the next power of two.
+     */
+    private static final int SLACK = 16;
+
+    @Param({"16", "20", "24"})
+    int log2Slots;
+
+    @Param({"0.5", "0.75", "0.9", "0.95"})
+    float loadFactor;
+
+    @Param({"OPEN_ADDRESSING", "CUCKOO"})
+    IntLongMaps implementation;
+
+    private final KeyDistribution distribution = KeyDistribution.UNIFORM;
+
+    private IntLongMap map;
+    private int[] hits;
+    private int[] misses;
+
+    @Setup
+    public void fill() {
+        int size = (int)((1 << log2Slots) * (double)loadFactor) - SLACK;
+
+        map = implementation.create(size, loadFactor);
+        for (int i = 0; i < size; i++) {
+            map.put(distribution.key(i), i);
+        }
+
+        hits = distribution.lookups(size, LOOKUPS, 42);
+        misses = distribution.keys(size, LOOKUPS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getHit() {
+        long sum = 0;
+        for (int key : hits) {
+            sum += map.get(key, -1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getMiss() {
+        long sum = 0;
+        for (int key : misses) {
+            sum += map.get(key, -1);
+        }
+        return sum;
+    }
+}
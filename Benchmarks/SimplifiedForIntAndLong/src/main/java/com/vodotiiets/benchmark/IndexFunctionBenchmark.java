@@ -0,0 +1,69 @@
+package com.vodotiiets.benchmark;
+
+import com.vodotiiets.HashMixer;
+import com.vodotiiets.IndexFunction;
+import com.vodotiiets.OpenAddressingHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hits on {@link OpenAddressingHashMap} for every pair of index function and mixer.
+ *
+ * Created by Denys Vodotiiets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IndexFunctionBenchmark {
+
+    private static final int LOOKUPS = 1 << 16;
+
+    @Param({"1000", "1000000", "10000000"})
+    int size;
+
+    @Param({"SEQUENTIAL", "UNIFORM"})
+    KeyDistribution distribution;
+
+    @Param({"POWER_OF_TWO_MASK", "FAST_RANGE"})
+    IndexFunction indexFunction;
+
+    @Param({"SPREAD", "MURMUR3", "FIBONACCI"})
+    HashMixer mixer;
+
+    private OpenAddressingHashMap map;
+    private int[] hits;
+
+    @Setup
+    public void setUp() {
+        map = new OpenAddressingHashMap(size, 0.75f, indexFunction, mixer, 0);
+        for (int i = 0; i < size; i++) {
+            map.put(distribution.key(i), i);
+        }
+        hits = distribution.lookups(size, LOOKUPS, 42);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getHit() {
+        long sum = 0;
+        for (int key : hits) {
+            sum += map.get(key);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,18 @@
+package com.vodotiiets.benchmark;
+
+/**
+ * The operations benchmarked on every int to long map implementation.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public interface IntLongMap {
+
+    void put(int key, long value);
+
+    /**
+     * Returns the value of the key, or the given value if there is none.
+     */
+    long get(int key, long missingValue);
+
+    void remove(int key);
+}
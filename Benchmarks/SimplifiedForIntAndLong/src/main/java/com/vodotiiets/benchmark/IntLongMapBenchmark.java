@@ -0,0 +1,115 @@
+package com.vodotiiets.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups and a mixed workload on a filled int to long map. Every invocation runs
+ * <tt>LOOKUPS</tt> operations over precomputed keys, so the scores are per operation.
+ *
+ * Created by Denys Vodotiiets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IntLongMapBenchmark {
+
+    static final int LOOKUPS = 1 << 16;
+
+    private static final byte GET = 0;
+    private static final byte UPDATE = 1;
+    private static final byte REPLACE = 2;
+
+    @Param({"1000", "100000", "10000000", "100000000"})
+    int size;
+
+    @Param({"0.5", "0.75", "0.9"})
+    float loadFactor;
+
+    @Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN"})
+    KeyDistribution distribution;
+
+    @Param({"OPEN_ADDRESSING", "CONCURRENT", "CUCKOO", "JDK", "FASTUTIL"})
+    IntLongMaps implementation;
+
+    private IntLongMap map;
+    private int[] hits;
+    private int[] misses;
+    private byte[] operations;
+
+    @Setup
+    public void setUp() {
+        map = implementation.create(size, loadFactor);
+        for (int i = 0; i < size; i++) {
+            map.put(distribution.key(i), i);
+        }
+
+        hits = distribution.lookups(size, LOOKUPS, 42);
+        misses = distribution.keys(size, LOOKUPS);
+
+        // 80% get, 10% update, 10% remove and put back, so the size stays the same
+        Random random = new Random(42);
+        operations = new byte[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            int dice = random.nextInt(10);
+            operations[i] = dice < 8 ? GET : dice == 8 ? UPDATE : REPLACE;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getHit() {
+        long sum = 0;
+        for (int key : hits) {
+            sum += map.get(key, -1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getMiss() {
+        long sum = 0;
+        for (int key : misses) {
+            sum += map.get(key, -1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long mixed() {
+        long sum = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            int key = hits[i];
+            switch (operations[i]) {
+                case GET:
+                    sum += map.get(key, -1);
+                    break;
+                case UPDATE:
+                    map.put(key, i);
+                    break;
+                default:
+                    map.remove(key);
+                    map.put(key, i);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,61 @@
+package com.vodotiiets.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills an empty int to long map with <tt>size</tt> keys. The map starts at its
+ * default capacity when <tt>presized</tt> is false, so the score includes resizing.
+ *
+ * Created by Denys Vodotiiets.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class IntLongMapPutBenchmark {
+
+    @Param({"1000", "100000", "10000000", "100000000"})
+    int size;
+
+    @Param({"0.5", "0.75", "0.9"})
+    float loadFactor;
+
+    @Param({"SEQUENTIAL", "UNIFORM"})
+    KeyDistribution distribution;
+
+    @Param({"OPEN_ADDRESSING", "CONCURRENT", "JDK", "FASTUTIL"})
+    IntLongMaps implementation;
+
+    @Param({"false", "true"})
+    boolean presized;
+
+    private int[] keys;
+
+    @Setup
+    public void setUp() {
+        keys = distribution.keys(0, size);
+    }
+
+    @Benchmark
+    public IntLongMap put() {
+        IntLongMap map = implementation.create(presized ? size : 16, loadFactor);
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        return map;
+    }
+}
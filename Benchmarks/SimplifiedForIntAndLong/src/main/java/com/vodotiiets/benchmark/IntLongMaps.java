@@ -0,0 +1,121 @@
+package com.vodotiiets.benchmark;
+
+import com.vodotiiets.ConcurrentOpenAddressingHashMap;
+import com.vodotiiets.CuckooHashMap;
+import com.vodotiiets.HashMap;
+import com.vodotiiets.OpenAddressingHashMap;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+
+/**
+ * The benchmarked int to long map implementations.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public enum IntLongMaps {
+
+    /**
+     * {@link OpenAddressingHashMap} with its default index function and mixer.
+     */
+    OPEN_ADDRESSING {
+        public IntLongMap create(int capacity, float loadFactor) {
+            return new Adapter(new OpenAddressingHashMap(capacity, loadFactor));
+        }
+    },
+
+    /**
+     * {@link ConcurrentOpenAddressingHashMap} with 16 segments.
+     */
+    CONCURRENT {
+        public IntLongMap create(int capacity, float loadFactor) {
+            return new Adapter(new ConcurrentOpenAddressingHashMap(capacity, loadFactor, 16));
+        }
+    },
+
+    /**
+     * {@link CuckooHashMap} with its default seed.
+     */
+    CUCKOO {
+        public IntLongMap create(int capacity, float loadFactor) {
+            return new Adapter(new CuckooHashMap(capacity, loadFactor));
+        }
+    },
+
+    /**
+     * <tt>java.util.HashMap</tt> of boxed keys and values.
+     */
+    JDK {
+        public IntLongMap create(int capacity, float loadFactor) {
+            final java.util.HashMap<Integer, Long> map =
+                    new java.util.HashMap<>((int)(capacity / loadFactor) + 1, loadFactor);
+
+            return new IntLongMap() {
+                public void put(int key, long value) {
+                    map.put(key, value);
+                }
+
+                public long get(int key, long missingValue) {
+                    return map.getOrDefault(key, missingValue);
+                }
+
+                public void remove(int key) {
+                    map.remove(key);
+                }
+            };
+        }
+    },
+
+    /**
+     * fastutil <tt>Int2LongOpenHashMap</tt>, the reference primitive map.
+     */
+    FASTUTIL {
+        public IntLongMap create(int capacity, float loadFactor) {
+            final Int2LongOpenHashMap map = new Int2LongOpenHashMap(capacity, loadFactor);
+
+            return new IntLongMap() {
+                public void put(int key, long value) {
+                    map.put(key, value);
+                }
+
+                public long get(int key, long missingValue) {
+                    return map.getOrDefault(key, missingValue);
+                }
+
+                public void remove(int key) {
+                    map.remove(key);
+                }
+            };
+        }
+    };
+
+    /**
+     * Creates an empty map able to hold the given number of mappings.
+     *
+     * @param capacity the expected number of mappings
+     * @param loadFactor the load factor
+     * @return the map
+     */
+    public abstract IntLongMap create(int capacity, float loadFactor);
+
+    /**
+     * Adapts the maps of this repository.
+     */
+    static final class Adapter implements IntLongMap {
+        private final HashMap map;
+
+        Adapter(HashMap map) {
+            this.map = map;
+        }
+
+        public void put(int key, long value) {
+            map.put(key, value);
+        }
+
+        public long get(int key, long missingValue) {
+            return map.getOrDefault(key, missingValue);
+        }
+
+        public void remove(int key) {
+            map.remove(key);
+        }
+    }
+}
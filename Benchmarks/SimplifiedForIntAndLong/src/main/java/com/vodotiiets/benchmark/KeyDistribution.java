@@ -0,0 +1,112 @@
+package com.vodotiiets.benchmark;
+
+import java.util.Random;
+
+/**
+ * Distributions of benchmark keys.
+ *
+ * <p>The keys of a map of size <tt>n</tt> are <tt>key(0) .. key(n - 1)</tt>; keys of
+ * larger indexes are distinct from them and serve as misses. The distribution also
+ * decides which of the present keys are looked up.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public enum KeyDistribution {
+
+    /**
+     * Keys 0, 1, 2, ..., looked up uniformly.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Distinct keys scattered over the whole int range, looked up uniformly.
+     */
+    UNIFORM,
+
+    /**
+     * The keys of <tt>UNIFORM</tt>, looked up with Zipfian skew (0.99),
+     * so a few keys are hot.
+     */
+    ZIPFIAN;
+
+    /**
+     * The skew of Zipfian lookups.
+     */
+    private static final double THETA = 0.99;
+
+    /**
+     * Returns the key of the given index. A bijection, so keys of distinct
+     * indexes are distinct.
+     *
+     * @param index the index
+     * @return the key
+     */
+    public int key(int index) {
+        if (this == SEQUENTIAL) {
+            return index;
+        }
+
+        int h = index * 0x2C1B3C6D;
+        h ^= h >>> 12;
+        h *= 0x297A2D39;
+        return h ^ (h >>> 15);
+    }
+
+    /**
+     * Returns the keys of indexes <tt>from .. from + count - 1</tt>.
+     *
+     * @param from the first index
+     * @param count the number of keys
+     * @return the keys
+     */
+    public int[] keys(int from, int count) {
+        int[] keys = new int[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = key(from + i);
+        }
+        return keys;
+    }
+
+    /**
+     * Returns keys to look up in a map of the given size.
+     *
+     * @param size the number of keys in the map
+     * @param count the number of lookups
+     * @param seed the seed of the random sequence
+     * @return the keys
+     */
+    public int[] lookups(int size, int count, long seed) {
+        Random random = new Random(seed);
+        int[] lookups = new int[count];
+
+        if (this != ZIPFIAN) {
+            for (int i = 0; i < count; i++) {
+                lookups[i] = key(random.nextInt(size));
+            }
+            return lookups;
+        }
+
+        // Gray et al., "Quickly generating billion-record synthetic databases"
+        double zetaN = 0;
+        for (int i = 1; i <= size; i++) {
+            zetaN += 1 / Math.pow(i, THETA);
+        }
+        double alpha = 1 / (1 - THETA);
+        double eta = (1 - Math.pow(2.0 / size, 1 - THETA)) / (1 - (1 + Math.pow(0.5, THETA)) / zetaN);
+
+        for (int i = 0; i < count; i++) {
+            double u = random.nextDouble();
+            double uz = u * zetaN;
+            int rank;
+            if (uz < 1) {
+                rank = 0;
+            } else if (uz < 1 + Math.pow(0.5, THETA)) {
+                rank = 1;
+            } else {
+                rank = (int)Math.min(size - 1, (long)(size * Math.pow(eta * u - eta + 1, alpha)));
+            }
+            lookups[i] = key(rank);
+        }
+        return lookups;
+    }
+}
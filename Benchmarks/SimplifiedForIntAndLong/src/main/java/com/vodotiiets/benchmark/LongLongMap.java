@@ -0,0 +1,18 @@
+package com.vodotiiets.benchmark;
+
+/**
+ * The operations benchmarked on every long to long map implementation.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public interface LongLongMap {
+
+    void put(long key, long value);
+
+    /**
+     * Returns the value of the key, or the given value if there is none.
+     */
+    long get(long key, long missingValue);
+
+    void remove(long key);
+}
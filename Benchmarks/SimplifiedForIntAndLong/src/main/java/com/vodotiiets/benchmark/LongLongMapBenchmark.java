@@ -0,0 +1,100 @@
+package com.vodotiiets.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups and a mixed workload on a filled long to long map, the generated map
+ * of the primitive-specialized family against fastutil. The keys are those of
+ * the distribution widened to long. Every invocation runs <tt>LOOKUPS</tt>
+ * operations over precomputed keys, so the scores are per operation.
+ *
+ * Created by Denys Vodotiiets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LongLongMapBenchmark {
+
+    private static final int LOOKUPS = IntLongMapBenchmark.LOOKUPS;
+
+    @Param({"1000", "100000", "10000000"})
+    int size;
+
+    @Param({"0.5", "0.75", "0.9"})
+    float loadFactor;
+
+    @Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN"})
+    KeyDistribution distribution;
+
+    @Param({"OPEN_ADDRESSING", "FASTUTIL"})
+    LongLongMaps implementation;
+
+    private LongLongMap map;
+    private long[] hits;
+    private long[] misses;
+
+    @Setup
+    public void setUp() {
+        map = implementation.create(size, loadFactor);
+        for (int i = 0; i < size; i++) {
+            map.put(distribution.key(i), i);
+        }
+
+        hits = widen(distribution.lookups(size, LOOKUPS, 42));
+        misses = widen(distribution.keys(size, LOOKUPS));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getHit() {
+        long sum = 0;
+        for (long key : hits) {
+            sum += map.get(key, -1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long getMiss() {
+        long sum = 0;
+        for (long key : misses) {
+            sum += map.get(key, -1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public long removeAndPut() {
+        for (int i = 0; i < LOOKUPS; i++) {
+            map.remove(hits[i]);
+            map.put(hits[i], i);
+        }
+        return LOOKUPS;
+    }
+
+    private static long[] widen(int[] keys) {
+        long[] widened = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            widened[i] = keys[i];
+        }
+        return widened;
+    }
+}
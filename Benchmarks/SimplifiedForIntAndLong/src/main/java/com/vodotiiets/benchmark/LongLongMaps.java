@@ -0,0 +1,68 @@
+package com.vodotiiets.benchmark;
+
+import com.vodotiiets.primitive.LongLongOpenAddressingHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+
+/**
+ * The benchmarked long to long map implementations.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public enum LongLongMaps {
+
+    /**
+     * {@link LongLongOpenAddressingHashMap}, generated from the map template,
+     * with its default index function and mixer.
+     */
+    OPEN_ADDRESSING {
+        public LongLongMap create(int capacity, float loadFactor) {
+            final LongLongOpenAddressingHashMap map = new LongLongOpenAddressingHashMap(capacity, loadFactor);
+
+            return new LongLongMap() {
+                public void put(long key, long value) {
+                    map.put(key, value);
+                }
+
+                public long get(long key, long missingValue) {
+                    return map.getOrDefault(key, missingValue);
+                }
+
+                public void remove(long key) {
+                    map.remove(key);
+                }
+            };
+        }
+    },
+
+    /**
+     * fastutil <tt>Long2LongOpenHashMap</tt>, the reference primitive map.
+     */
+    FASTUTIL {
+        public LongLongMap create(int capacity, float loadFactor) {
+            final Long2LongOpenHashMap map = new Long2LongOpenHashMap(capacity, loadFactor);
+
+            return new LongLongMap() {
+                public void put(long key, long value) {
+                    map.put(key, value);
+                }
+
+                public long get(long key, long missingValue) {
+                    return map.getOrDefault(key, missingValue);
+                }
+
+                public void remove(long key) {
+                    map.remove(key);
+                }
+            };
+        }
+    };
+
+    /**
+     * Creates an empty map able to hold the given number of mappings.
+     *
+     * @param capacity the expected number of mappings
+     * @param loadFactor the load factor
+     * @return the map
+     */
+    public abstract LongLongMap create(int capacity, float loadFactor);
+}
@@ -0,0 +1,607 @@
+package com.vodotiiets;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded open addressing cache implementing the <tt>HashMap</tt> interface.
+ *
+ * <p>The table is the one of {@link FlatOpenAddressingHashMap}, which this class
+ * extends: cached hashes in an <tt>int[]</tt>, keys and values interleaved in an
+ * <tt>Object[]</tt>, linear probing and backward shift deletion. It is allocated
+ * once for the maximum size and never grows. When a new key would exceed the
+ * maximum size, an entry is evicted by the CLOCK (second chance) policy: every hit
+ * sets the reference flag of its bucket, and the hand sweeps the table, clearing
+ * set flags and evicting the first entry whose flag is clear. Eviction is amortized
+ * O(1) and allocates nothing.
+ *
+ * <p>Entries may have a time to live, either the default one of the cache or one
+ * given to {@link #put(Object, Object, long, TimeUnit)}. An expired entry is dropped
+ * when a lookup finds it, and entries nobody looks up are swept by a hierarchical
+ * timer wheel, which is advanced by every write and by {@link #cleanUp()}. The
+ * lists of the wheel are intrusive: two <tt>int[]</tt> arrays link the buckets of
+ * the table, and an entry keeps its links when backward shift deletion moves it.
+ * Caches without a time to live never read the clock.
+ *
+ * <p>The size counts expired entries until they are dropped; <tt>forEach</tt> and
+ * the <tt>keySet</tt> and <tt>values</tt> views skip them. The walks fail fast if
+ * the cache is structurally modified, and do not count as hits.
+ *
+ * @see HashMap
+ * @see FlatOpenAddressingHashMap
+ *
+ * Created by Denys Vodotiiets.
+ */
+public class BoundedCache<K, V> extends FlatOpenAddressingHashMap<K, V> {
+
+    /**
+     * The link of a bucket which is in no list of the timer wheel.
+     */
+    private static final int UNLINKED = -1;
+
+    /**
+     * The number of buckets of every level of the timer wheel.
+     */
+    private static final int[] WHEEL_BUCKETS = {64, 64, 32, 4, 1};
+
+    /**
+     * The time spanned by a bucket of every level of the timer wheel, in
+     * nanoseconds: about a second, a minute, an hour, a day and six days. A bucket
+     * of a level spans the whole level below it.
+     */
+    private static final long[] WHEEL_SPANS = new long[WHEEL_BUCKETS.length];
+
+    /**
+     * The index of the first bucket of every level of the timer wheel.
+     */
+    private static final int[] WHEEL_OFFSETS = new int[WHEEL_BUCKETS.length + 1];
+
+    static {
+        WHEEL_SPANS[0] = 1L << 30;
+        for (int i = 0; i < WHEEL_BUCKETS.length; i++) {
+            WHEEL_OFFSETS[i + 1] = WHEEL_OFFSETS[i] + WHEEL_BUCKETS[i];
+            if (i + 1 < WHEEL_BUCKETS.length) {
+                WHEEL_SPANS[i + 1] = WHEEL_SPANS[i] * WHEEL_BUCKETS[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the capacity of the table for the given maximum size: at most
+     * 3/4 of the buckets are used, so probes stay short and end.
+     *
+     * @throws IllegalArgumentException if the maximum size is not positive or
+     *         the table would exceed the maximum capacity
+     */
+    private static int capacityFor(int maximumSize) {
+        if (maximumSize <= 0 || maximumSize > MAXIMUM_CAPACITY - (MAXIMUM_CAPACITY >> 2)) {
+            throw new IllegalArgumentException("Illegal maximum size: " + maximumSize);
+        }
+        return maximumSize + (maximumSize + 2) / 3;
+    }
+
+    /**
+     * The reference flags of the CLOCK policy, parallel to hashes.
+     */
+    private final boolean[] referenced;
+
+    /**
+     * The times the entries expire at, or 0 for entries which never expire.
+     */
+    private final long[] expiries;
+
+    /**
+     * The links of the timer wheel lists. The first entries are parallel to
+     * hashes; they are followed by the sentinels of the wheel buckets and the
+     * sentinel of the list being expired.
+     */
+    private final int[] next;
+    private final int[] previous;
+
+    /**
+     * The sentinel of the list of entries being expired.
+     */
+    private final int pending;
+
+    /**
+     * The maximum number of mappings.
+     */
+    private final int maximumSize;
+
+    /**
+     * The bucket the CLOCK hand points at.
+     */
+    private int hand;
+
+    /**
+     * The default time to live in nanoseconds, or 0 if entries never expire
+     * by default.
+     */
+    private final long timeToLive;
+
+    /**
+     * The source of the current time in nanoseconds.
+     */
+    private final LongSupplier ticker;
+
+    /**
+     * The time the timer wheel was last advanced to.
+     */
+    private long wheelTime;
+
+    /**
+     * The number of entries in the timer wheel.
+     */
+    private int scheduled;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    /**
+     * Constructs an empty <tt>BoundedCache</tt> with the specified maximum size,
+     * default time to live, clock and hash mixer.
+     *
+     * @param  maximumSize the maximum number of mappings
+     * @param  timeToLive  the default time to live, or 0 if entries never expire by default
+     * @param  unit        the unit of the time to live
+     * @param  ticker      the source of the current time in nanoseconds, e.g. <tt>System::nanoTime</tt>
+     * @param  mixer       the mixer applied to key hash codes
+     * @param  seed        the seed of the mixer, e.g. {@link HashMixer#randomSeed()}
+     * @throws IllegalArgumentException if the maximum size is not positive or too
+     *         large, the time to live is negative, or the unit, ticker or mixer is null
+     */
+    public BoundedCache(int maximumSize, long timeToLive, TimeUnit unit, LongSupplier ticker,
+                        HashMixer mixer, int seed) {
+        super(capacityFor(maximumSize), 1, mixer, seed);
+
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException("Illegal time to live: " + timeToLive);
+        }
+
+        if (unit == null) {
+            throw new IllegalArgumentException("Illegal time unit: " + unit);
+        }
+
+        if (ticker == null) {
+            throw new IllegalArgumentException("Illegal ticker: " + ticker);
+        }
+
+        this.maximumSize = maximumSize;
+        this.timeToLive = unit.toNanos(timeToLive);
+        this.ticker = ticker;
+
+        int capacity = hashes.length;
+        referenced = new boolean[capacity];
+        expiries = new long[capacity];
+
+        pending = capacity + WHEEL_OFFSETS[WHEEL_BUCKETS.length];
+        next = new int[pending + 1];
+        previous = new int[pending + 1];
+        for (int j = 0; j < capacity; j++) {
+            previous[j] = UNLINKED;
+        }
+        for (int j = capacity; j <= pending; j++) {
+            next[j] = previous[j] = j;
+        }
+        wheelTime = ticker.getAsLong();
+    }
+
+    /**
+     * Constructs an empty <tt>BoundedCache</tt> with the specified maximum size
+     * and default time to live, using the system clock.
+     *
+     * @param  maximumSize the maximum number of mappings
+     * @param  timeToLive  the default time to live, or 0 if entries never expire by default
+     * @param  unit        the unit of the time to live
+     * @throws IllegalArgumentException if the maximum size is not positive or too
+     *         large, the time to live is negative or the unit is null
+     */
+    public BoundedCache(int maximumSize, long timeToLive, TimeUnit unit) {
+        this(maximumSize, timeToLive, unit, System::nanoTime, HashMixer.SPREAD, 0);
+    }
+
+    /**
+     * Constructs an empty <tt>BoundedCache</tt> with the specified maximum size,
+     * whose entries do not expire by default.
+     *
+     * @param  maximumSize the maximum number of mappings
+     * @throws IllegalArgumentException if the maximum size is not positive or too large
+     */
+    public BoundedCache(int maximumSize) {
+        this(maximumSize, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Associates the specified value with the specified key in this cache,
+     * with the default time to live. If the cache previously contained a mapping
+     * for the key, the old value is replaced by the specified value. If the cache
+     * is full, an entry is evicted.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    public boolean put(K key, V value) {
+        return putValue(key, value, timeToLive, false);
+    }
+
+    /**
+     * Associates the specified value with the specified key in this cache,
+     * with the given time to live.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @param timeToLive the time to live of the mapping
+     * @param unit the unit of the time to live
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalArgumentException if the specified key is null, the time
+     *         to live is not positive or the unit is null
+     */
+    public boolean put(K key, V value, long timeToLive, TimeUnit unit) {
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("Illegal time to live: " + timeToLive);
+        }
+
+        if (unit == null) {
+            throw new IllegalArgumentException("Illegal time unit: " + unit);
+        }
+        return putValue(key, value, unit.toNanos(timeToLive), false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value (or is mapped
+     * to {@code null}) associates it with the given value, with the default time
+     * to live, and returns <tt>true</tt>.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    public boolean putOnlyIfAbsent(K key, V value) {
+        return putValue(key, value, timeToLive, true);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or {@code null}
+     * if this cache contains no live mapping for the key. An expired mapping
+     * is dropped.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code null} if this cache contains no mapping for the key
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Illegal key: " + key);
+        }
+
+        int index = findLiveIndex(hash(key), key);
+        if (index < 0) {
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        referenced[index] = true;
+        return (V)table[(index << 1) + 1];
+    }
+
+    /**
+     * Removes the mapping for the specified key from this cache if present.
+     *
+     * @param key key whose mapping is to be removed from the cache
+     * @return <tt>true</tt> if a live mapping was removed
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    public boolean remove(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Illegal key: " + key);
+        }
+
+        int index = findLiveIndex(hash(key), key);
+        if (index < 0) {
+            return false;
+        }
+
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Drops every expired mapping the timer wheel has reached. Writes do this
+     * as well, so it only has to be called for caches which are mostly read.
+     */
+    public void cleanUp() {
+        if (scheduled > 0) {
+            advance(ticker.getAsLong());
+        }
+    }
+
+    /**
+     * Returns the number of lookups which found a live mapping.
+     *
+     * @return the number of hits
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which found no live mapping.
+     *
+     * @return the number of misses
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of mappings evicted to make room for new ones.
+     *
+     * @return the number of evictions
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of mappings dropped because they expired.
+     *
+     * @return the number of expirations
+     */
+    public long expirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Implements BoundedCache.put and BoundedCache.putOnlyIfAbsent
+     *
+     * @param key the key
+     * @param value the value to put
+     * @param timeToLive the time to live in nanoseconds, or 0 if none
+     * @param onlyIfAbsent if true, don't change existing value
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    private boolean putValue(K key, V value, long timeToLive, boolean onlyIfAbsent) {
+        if (key == null) {
+            throw new IllegalArgumentException("Illegal key: " + key);
+        }
+
+        long now = 0;
+        if (timeToLive > 0 || scheduled > 0) {
+            now = ticker.getAsLong();
+            if (scheduled > 0) {
+                advance(now);
+            }
+        }
+
+        int hash = hash(key);
+        int index = findIndex(hash, key);
+
+        if (index >= 0 && isExpired(index, now)) {
+            removeAt(index);
+            expirationCount++;
+            index = findIndex(hash, key);
+        }
+
+        if (index >= 0) {
+            int valueIndex = (index << 1) + 1;
+            if (table[valueIndex] == null || !onlyIfAbsent) {
+                table[valueIndex] = value;
+                referenced[index] = true;
+                setExpiry(index, timeToLive, now);
+                return true;
+            }
+            return false;
+        }
+
+        if (size >= maximumSize) {
+            evict();
+            index = findIndex(hash, key);
+        }
+
+        insertAt(~index, hash, key, value);
+        setExpiry(~index, timeToLive, now);
+        return true;
+    }
+
+    /**
+     * Finds the bucket holding the key, dropping its mapping if it has
+     * expired. The clock is read only for a mapping with a time to live.
+     *
+     * @return index of the bucket, or -1 if none
+     */
+    private int findLiveIndex(int hash, Object key) {
+        int index = findIndex(hash, key);
+
+        if (index >= 0 && expiries[index] != 0 && isExpired(index, ticker.getAsLong())) {
+            removeAt(index);
+            expirationCount++;
+            return -1;
+        }
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * Returns the time of the walks of the table, which skip expired mappings.
+     * The clock is read only if some mapping has a time to live.
+     */
+    long walkTime() {
+        return scheduled > 0 ? ticker.getAsLong() : 0;
+    }
+
+    /**
+     * Returns whether the mapping of the bucket has expired by the given time.
+     */
+    boolean isExpired(int index, long now) {
+        long expiry = expiries[index];
+        return expiry != 0 && expiry - now <= 0;
+    }
+
+    /**
+     * Sets the expiry of the mapping of the bucket and moves it to the
+     * matching bucket of the timer wheel.
+     */
+    private void setExpiry(int index, long timeToLive, long now) {
+        if (previous[index] != UNLINKED) {
+            unlink(index);
+        }
+
+        if (timeToLive > 0) {
+            long expiry = now + timeToLive;
+            expiries[index] = expiry == 0 ? 1 : expiry;
+            schedule(index);
+        } else {
+            expiries[index] = 0;
+        }
+    }
+
+    /**
+     * Evicts one mapping by the CLOCK policy. The hand stays at the bucket
+     * of the evicted mapping, which backward shift deletion may have refilled.
+     */
+    private void evict() {
+        int mask = hashes.length - 1;
+
+        for (int index = hand; ; index = mask & (index + 1)) {
+            if (hashes[index] != 0) {
+                if (referenced[index]) {
+                    referenced[index] = false;
+                } else {
+                    hand = index;
+                    removeAt(index);
+                    evictionCount++;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping of the bucket, unlinking it from the timer wheel.
+     */
+    void removeAt(int index) {
+        if (previous[index] != UNLINKED) {
+            unlink(index);
+        }
+        super.removeAt(index);
+    }
+
+    /**
+     * Moves the reference flag, expiry and wheel links of an entry along
+     * with it when backward shift deletion moves it.
+     */
+    void entryMoved(int from, int to) {
+        referenced[to] = referenced[from];
+        expiries[to] = expiries[from];
+        if (previous[from] != UNLINKED) {
+            next[to] = next[from];
+            previous[to] = previous[from];
+            next[previous[to]] = to;
+            previous[next[to]] = to;
+            previous[from] = UNLINKED;
+        }
+    }
+
+    /**
+     * Clears the reference flag and expiry of a bucket left unused.
+     */
+    void entryCleared(int index) {
+        referenced[index] = false;
+        expiries[index] = 0;
+    }
+
+    /**
+     * Links the bucket into the timer wheel bucket of its expiry: the lowest
+     * level whose span of buckets covers the remaining time.
+     */
+    private void schedule(int index) {
+        long expiry = expiries[index];
+        long duration = expiry - wheelTime;
+        int level = 0;
+
+        while (level < WHEEL_BUCKETS.length - 1 && duration >= WHEEL_SPANS[level + 1]) {
+            level++;
+        }
+
+        int shift = Long.numberOfTrailingZeros(WHEEL_SPANS[level]);
+        int bucket = (int)((expiry >>> shift) & (WHEEL_BUCKETS[level] - 1));
+        int sentinel = hashes.length + WHEEL_OFFSETS[level] + bucket;
+
+        next[index] = sentinel;
+        previous[index] = previous[sentinel];
+        next[previous[sentinel]] = index;
+        previous[sentinel] = index;
+        scheduled++;
+    }
+
+    /**
+     * Unlinks the bucket from its timer wheel list.
+     */
+    private void unlink(int index) {
+        next[previous[index]] = next[index];
+        previous[next[index]] = previous[index];
+        previous[index] = UNLINKED;
+        scheduled--;
+    }
+
+    /**
+     * Advances the timer wheel to the given time. On every level the buckets
+     * whose ticks have passed are emptied: their expired entries are dropped
+     * and the others are scheduled again, usually on a lower level.
+     */
+    private void advance(long now) {
+        long previousTime = wheelTime;
+        wheelTime = now;
+
+        for (int level = 0; level < WHEEL_BUCKETS.length; level++) {
+            int shift = Long.numberOfTrailingZeros(WHEEL_SPANS[level]);
+            long previousTicks = previousTime >>> shift;
+            long delta = (now >>> shift) - previousTicks;
+            if (delta <= 0) {
+                break;
+            }
+
+            int mask = WHEEL_BUCKETS[level] - 1;
+            int start = (int)(previousTicks & mask);
+            int end = start + (int)Math.min(delta + 1, WHEEL_BUCKETS[level]);
+            for (int j = start; j < end; j++) {
+                expireBucket(hashes.length + WHEEL_OFFSETS[level] + (j & mask));
+            }
+        }
+    }
+
+    /**
+     * Moves the list of the wheel bucket aside, so that entries scheduled
+     * again into the same bucket are not visited twice, and processes it.
+     */
+    private void expireBucket(int sentinel) {
+        if (next[sentinel] == sentinel) {
+            return;
+        }
+
+        next[pending] = next[sentinel];
+        previous[pending] = previous[sentinel];
+        previous[next[pending]] = pending;
+        next[previous[pending]] = pending;
+        next[sentinel] = previous[sentinel] = sentinel;
+
+        int index;
+        while ((index = next[pending]) != pending) {
+            unlink(index);
+            if (expiries[index] - wheelTime <= 0) {
+                removeAt(index);
+                expirationCount++;
+            } else {
+                schedule(index);
+            }
+        }
+    }
+}
@@ -0,0 +1,583 @@
+package com.vodotiiets;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Open addressing implementation of the <tt>HashMap</tt> interface without nodes.
+ *
+ * <p>The hashes of the keys are cached in an <tt>int[]</tt>, and keys and values are
+ * interleaved in an <tt>Object[]</tt>: the key of bucket <tt>i</tt> is at
+ * <tt>2 * i</tt> and its value right after it. A probe scans the dense array of
+ * hashes and touches a key only on a hash match, and the value of a found key is
+ * usually in the same cache line. Compared to {@link OpenAddressingHashMap} every
+ * mapping saves a node, that is an object header and a reference.
+ *
+ * <p>The highest bit of a cached hash is always set, so that zero marks an unused
+ * bucket. Buckets are probed linearly, and removal uses backward shift deletion,
+ * so the table never contains tombstones. The table is rebuilt from the cached
+ * hashes, without calling <tt>hashCode</tt>.
+ *
+ * <p>The mappings are walked in the order of the table by <tt>forEach</tt> and the
+ * <tt>keySet</tt> and <tt>values</tt> views, which fail fast if the map is
+ * structurally modified during the walk.
+ *
+ * <p>The table is shared with {@link BoundedCache}, which extends it through the
+ * package-private hooks called when entries are moved, cleared and walked.
+ *
+ * @see HashMap
+ * @see OpenAddressingHashMap
+ *
+ * Created by Denys Vodotiiets.
+ */
+public class FlatOpenAddressingHashMap<K, V> implements HashMap<K, V> {
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum capacity, used if a higher value is implicitly specified
+     * by either of the constructors with arguments.
+     * MUST be a power of two <= 1<<29, so that the interleaved table of
+     * twice the capacity fits into an array.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 29;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * The bit set in every cached hash.
+     */
+    private static final int USED = 0x80000000;
+
+    /**
+     * Returns a power of two size for the given target capacity.
+     */
+    private static int tableSizeFor(int capacity) {
+        int size = capacity - 1;
+        size |= size >>> 1;
+        size |= size >>> 2;
+        size |= size >>> 4;
+        size |= size >>> 8;
+        size |= size >>> 16;
+        return (size < 1) ? 2 : (size >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : size + 1;
+    }
+
+    /**
+     * The cached hashes of the keys, or 0 for unused buckets.
+     */
+    int[] hashes;
+
+    /**
+     * The keys and values, interleaved.
+     */
+    Object[] table;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    int size;
+
+    /**
+     * The number of times this map has been structurally modified, used
+     * to make iteration fail fast.
+     */
+    int modCount;
+
+    /**
+     * The load factor for the hash map.
+     */
+    private final float loadFactor;
+
+    /**
+     * The next size value at which to resize (capacity * load factor).
+     */
+    private int threshold;
+
+    /**
+     * The mixer applied to key hash codes.
+     */
+    private final HashMixer mixer;
+
+    /**
+     * The seed of the mixer.
+     */
+    private final int seed;
+
+    /**
+     * Constructs an empty <tt>FlatOpenAddressingHashMap</tt> with the specified
+     * initial capacity, load factor and hash mixer.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor
+     * @param  mixer           the mixer applied to key hash codes
+     * @param  seed            the seed of the mixer, e.g. {@link HashMixer#randomSeed()}
+     * @throws IllegalArgumentException if the initial capacity is negative,
+     *         the load factor is nonpositive or greater than one, or the mixer is null
+     */
+    public FlatOpenAddressingHashMap(int initialCapacity, float loadFactor, HashMixer mixer, int seed) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+
+        if (!(loadFactor > 0 && loadFactor <= 1)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+
+        if (mixer == null) {
+            throw new IllegalArgumentException("Illegal hash mixer: " + mixer);
+        }
+
+        this.loadFactor = loadFactor;
+        this.mixer = mixer;
+        this.seed = seed;
+        allocate(tableSizeFor(initialCapacity > MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY : initialCapacity));
+    }
+
+    /**
+     * Constructs an empty <tt>FlatOpenAddressingHashMap</tt> with the specified
+     * initial capacity and load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is nonpositive or greater than one
+     */
+    public FlatOpenAddressingHashMap(int initialCapacity, float loadFactor) {
+        this(initialCapacity, loadFactor, HashMixer.SPREAD, 0);
+    }
+
+    /**
+     * Constructs an empty <tt>FlatOpenAddressingHashMap</tt> with the specified
+     * initial capacity and the default load factor (0.75).
+     *
+     * @param  initialCapacity the initial capacity.
+     * @throws IllegalArgumentException if the initial capacity is negative.
+     */
+    public FlatOpenAddressingHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty <tt>FlatOpenAddressingHashMap</tt> with the default
+     * initial capacity (16) and the default load factor (0.75).
+     */
+    public FlatOpenAddressingHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for
+     * the key, the old value is replaced by the specified value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    public boolean put(K key, V value) {
+        return putValue(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value (or is mapped
+     * to {@code null}) associates it with the given value and returns
+     * <tt>true</tt>.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    public boolean putOnlyIfAbsent(K key, V value) {
+        return putValue(key, value, true);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code null} if this map contains no mapping for the key
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Illegal key: " + key);
+        }
+
+        int index;
+        return (index = findIndex(hash(key), key)) < 0 ? null : (V)table[(index << 1) + 1];
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return <tt>true</tt> if the removal occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    public boolean remove(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Illegal key: " + key);
+        }
+
+        int index;
+        if ((index = findIndex(hash(key), key)) < 0) {
+            return false;
+        }
+
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Performs the given action for each mapping of this map, in the order of
+     * the table.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws IllegalArgumentException if the action is null
+     * @throws ConcurrentModificationException if the action structurally modifies the map
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Illegal action: " + action);
+        }
+
+        int[] hs = hashes;
+        Object[] tab = table;
+        long now = walkTime();
+        int expectedModCount = modCount;
+
+        for (int j = 0; j < hs.length; ++j) {
+            if (hs[j] != 0 && !isExpired(j, now)) {
+                action.accept((K)tab[j << 1], (V)tab[(j << 1) + 1]);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a read-only {@link Set} view of the keys contained in this map,
+     * iterated in the order of the table. The set is backed by the map, so changes
+     * to the map are reflected in the set. Its iterators fail fast if the map is
+     * structurally modified.
+     *
+     * @return a set view of the keys contained in this map
+     */
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    /**
+     * Returns a read-only {@link Collection} view of the values contained in this
+     * map, iterated in the order of the table. The collection is backed by the map,
+     * so changes to the map are reflected in the collection. Its iterators fail fast
+     * if the map is structurally modified.
+     *
+     * @return a collection view of the values contained in this map
+     */
+    public Collection<V> values() {
+        return new Values();
+    }
+
+    private final class KeySet extends AbstractSet<K> {
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(Object o) {
+            int index;
+            return o != null && (index = findIndex(hash(o), o)) >= 0 && !isExpired(index, walkTime());
+        }
+
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+    }
+
+    private final class Values extends AbstractCollection<V> {
+        public int size() {
+            return size;
+        }
+
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+    }
+
+    /**
+     * Iterator over the used buckets of the table, skipping expired mappings.
+     */
+    private abstract class BucketIterator {
+        private final int[] hs = hashes;
+        private final long now = walkTime();
+        private final int expectedModCount = modCount;
+        private int next = -1;
+
+        BucketIterator() {
+            advance();
+        }
+
+        public final boolean hasNext() {
+            return next < hs.length;
+        }
+
+        final int nextIndex() {
+            int index = next;
+
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (index >= hs.length) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return index;
+        }
+
+        private void advance() {
+            do {
+                next++;
+            } while (next < hs.length && (hs[next] == 0 || isExpired(next, now)));
+        }
+    }
+
+    private final class KeyIterator extends BucketIterator implements Iterator<K> {
+        @SuppressWarnings("unchecked")
+        public K next() {
+            return (K)table[nextIndex() << 1];
+        }
+    }
+
+    private final class ValueIterator extends BucketIterator implements Iterator<V> {
+        @SuppressWarnings("unchecked")
+        public V next() {
+            return (V)table[(nextIndex() << 1) + 1];
+        }
+    }
+
+    /**
+     * Implements FlatOpenAddressingHashMap.put and
+     * FlatOpenAddressingHashMap.putOnlyIfAbsent
+     *
+     * @param key the key
+     * @param value the value to put
+     * @param onlyIfAbsent if true, don't change existing value
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    private boolean putValue(K key, V value, boolean onlyIfAbsent) {
+        if (key == null) {
+            throw new IllegalArgumentException("Illegal key: " + key);
+        }
+
+        int hash = hash(key);
+        int index = findIndex(hash, key);
+
+        if (index >= 0) {
+            int valueIndex = (index << 1) + 1;
+            if (table[valueIndex] == null || !onlyIfAbsent) {
+                table[valueIndex] = value;
+                return true;
+            }
+            return false;
+        }
+
+        if (size >= threshold) {
+            if (hashes.length >= MAXIMUM_CAPACITY) {
+                throw new IllegalStateException("There is no place for new data");
+            }
+            resize();
+            index = findIndex(hash, key);
+        }
+
+        insertAt(~index, hash, key, value);
+        return true;
+    }
+
+    /**
+     * Puts a new mapping into the unused bucket returned by {@link #findIndex}.
+     */
+    final void insertAt(int index, int hash, K key, V value) {
+        hashes[index] = hash;
+        table[index << 1] = key;
+        table[(index << 1) + 1] = value;
+        modCount++;
+        size++;
+    }
+
+    /**
+     * Removes the mapping of the bucket.
+     */
+    void removeAt(int index) {
+        shiftEntries(index);
+        modCount++;
+        size--;
+    }
+
+    /**
+     * Finds the bucket holding the key. Keys are compared only if their
+     * cached hashes are equal.
+     *
+     * @param hash cached hash for key
+     * @param key the key
+     * @return index of the bucket, or <tt>~index</tt> of the first unused
+     *         bucket of the probe sequence if none
+     */
+    final int findIndex(int hash, Object key) {
+        int[] hs = hashes;
+        Object[] tab = table;
+        int mask = hs.length - 1;
+        int currentIndex = mask & hash;
+        int currentHash;
+        Object currentKey;
+
+        while ((currentHash = hs[currentIndex]) != 0) {
+            if (currentHash == hash &&
+                    ((currentKey = tab[currentIndex << 1]) == key || key.equals(currentKey))) {
+                return currentIndex;
+            }
+            currentIndex = mask & (currentIndex + 1);
+        }
+        return ~currentIndex;
+    }
+
+    /**
+     * Removes the entry of the bucket by backward shift deletion: every
+     * following entry of the cluster which may move back into the gap is
+     * moved, and the last gap is cleared. Both are reported to the hooks.
+     *
+     * @param gap the bucket of the removed entry
+     */
+    final void shiftEntries(int gap) {
+        int[] hs = hashes;
+        Object[] tab = table;
+        int mask = hs.length - 1;
+        int currentIndex = gap;
+        int currentHash, homeIndex;
+
+        while ((currentHash = hs[currentIndex = mask & (currentIndex + 1)]) != 0) {
+            homeIndex = mask & currentHash;
+            if (gap <= currentIndex ? (homeIndex <= gap || homeIndex > currentIndex)
+                    : (homeIndex <= gap && homeIndex > currentIndex)) {
+                hs[gap] = currentHash;
+                tab[gap << 1] = tab[currentIndex << 1];
+                tab[(gap << 1) + 1] = tab[(currentIndex << 1) + 1];
+                entryMoved(currentIndex, gap);
+                gap = currentIndex;
+            }
+        }
+
+        hs[gap] = 0;
+        tab[gap << 1] = null;
+        tab[(gap << 1) + 1] = null;
+        entryCleared(gap);
+    }
+
+    /**
+     * Called when backward shift deletion moves an entry to another bucket.
+     * Subclasses which keep per-bucket state, like {@link BoundedCache}, move
+     * it along.
+     */
+    void entryMoved(int from, int to) {
+    }
+
+    /**
+     * Called when a bucket is left unused by backward shift deletion.
+     * Subclasses which keep per-bucket state, like {@link BoundedCache}, reset it.
+     */
+    void entryCleared(int index) {
+    }
+
+    /**
+     * Returns the time the walks and views of the table check expiry against,
+     * read once per walk so that a walk sees a single point in time.
+     */
+    long walkTime() {
+        return 0;
+    }
+
+    /**
+     * Returns whether the mapping of the bucket has expired by the given
+     * time, in which case walks of the table skip it. Mappings of this map
+     * never expire.
+     */
+    boolean isExpired(int index, long now) {
+        return false;
+    }
+
+    /**
+     * Computes key.hashCode(), scrambles it with the mixer of this map and
+     * marks it as used.
+     */
+    final int hash(Object key) {
+        return mixer.mix(key.hashCode(), seed) | USED;
+    }
+
+    /**
+     * Allocates an empty table of the given power of two capacity. One
+     * bucket is always left unused, so that every probe terminates.
+     */
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        table = new Object[capacity << 1];
+        threshold = Math.min((int)Math.min((float)capacity * loadFactor, MAXIMUM_CAPACITY), capacity - 1);
+    }
+
+    /**
+     * Doubles the table, putting the entries into their buckets by their
+     * cached hashes.
+     */
+    private void resize() {
+        int[] oldHashes = hashes;
+        Object[] oldTable = table;
+
+        allocate(oldHashes.length << 1);
+        modCount++;
+
+        int[] hs = hashes;
+        Object[] tab = table;
+        int mask = hs.length - 1;
+        int currentHash, currentIndex;
+
+        for (int j = 0; j < oldHashes.length; ++j) {
+            if ((currentHash = oldHashes[j]) != 0) {
+                currentIndex = mask & currentHash;
+                while (hs[currentIndex] != 0) {
+                    currentIndex = mask & (currentIndex + 1);
+                }
+                hs[currentIndex] = currentHash;
+                tab[currentIndex << 1] = oldTable[j << 1];
+                tab[(currentIndex << 1) + 1] = oldTable[(j << 1) + 1];
+            }
+        }
+    }
+}
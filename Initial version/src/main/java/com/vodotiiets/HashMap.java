@@ -1,5 +1,9 @@
 package com.vodotiiets;
 
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
 /**
  * An object that maps keys to values.  A map cannot contain duplicate keys;
  * each key can map to at most one value.
@@ -57,4 +61,41 @@ public interface HashMap<K, V> {
      * @throws IllegalArgumentException if the specified key is null
      */
     V get(Object key);
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return <tt>true</tt> if the removal occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    boolean remove(Object key);
+
+    /**
+     * Performs the given action for each mapping of this map.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws IllegalArgumentException if the action is null
+     * @throws java.util.ConcurrentModificationException if the action
+     *         structurally modifies the map
+     */
+    void forEach(BiConsumer<? super K, ? super V> action);
+
+    /**
+     * Returns a read-only {@link Set} view of the keys contained in this map.
+     * The set is backed by the map, so changes to the map are reflected in the
+     * set. Its iterators fail fast if the map is structurally modified.
+     *
+     * @return a set view of the keys contained in this map
+     */
+    Set<K> keySet();
+
+    /**
+     * Returns a read-only {@link Collection} view of the values contained in this
+     * map. The collection is backed by the map, so changes to the map are reflected
+     * in the collection. Its iterators fail fast if the map is structurally modified.
+     *
+     * @return a collection view of the values contained in this map
+     */
+    Collection<V> values();
 }
@@ -0,0 +1,76 @@
+package com.vodotiiets;
+
+/**
+ * The management interface of the statistics of a map. An instance is obtained
+ * from the map and registered with an <tt>MBeanServer</tt>, e.g.
+ * <pre>
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(map.statisticsMXBean(),
+ *         new ObjectName("com.vodotiiets:type=HashMap,name=sessions"));
+ * </pre>
+ * Histograms count the operations by probe length: bucket <tt>i</tt> counts
+ * those which found their slot <tt>i</tt> slots past the home slot of the key, and
+ * the last bucket also counts all longer probes. Histograms and resizes are only
+ * recorded in the statistics mode, see {@link #isEnabled()}.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public interface MapStatisticsMXBean {
+
+    /**
+     * Returns whether probes and resizes are recorded, which is the case when
+     * the system property <tt>com.vodotiiets.statistics</tt> is <tt>true</tt>.
+     *
+     * @return whether the statistics mode is on
+     */
+    boolean isEnabled();
+
+    /**
+     * @return the number of key-value mappings
+     */
+    int getSize();
+
+    /**
+     * @return the number of slots of the table
+     */
+    int getCapacity();
+
+    /**
+     * @return the current ratio of the size to the capacity
+     */
+    double getLoadFactor();
+
+    /**
+     * @return the length of the longest run of used slots
+     */
+    int getMaxClusterLength();
+
+    /**
+     * @return the number of times the table has grown
+     */
+    long getResizeCount();
+
+    /**
+     * @return the total time spent growing the table, in nanoseconds
+     */
+    long getResizeNanos();
+
+    /**
+     * @return the histogram of probe lengths of puts of present keys
+     */
+    long[] getPutHitProbeLengths();
+
+    /**
+     * @return the histogram of probe lengths of puts of absent keys
+     */
+    long[] getPutMissProbeLengths();
+
+    /**
+     * @return the histogram of probe lengths of lookups of present keys
+     */
+    long[] getGetHitProbeLengths();
+
+    /**
+     * @return the histogram of probe lengths of lookups of absent keys
+     */
+    long[] getGetMissProbeLengths();
+}
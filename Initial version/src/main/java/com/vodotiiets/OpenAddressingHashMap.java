@@ -1,7 +1,33 @@
 package com.vodotiiets;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Open addressing Hash Map based implementation of the <tt>HashMap</tt> interface.
@@ -18,6 +44,38 @@ import java.util.Objects;
  * either the target record is found, or an unused array slot is found, which indicates
  * that there is no such key in the table.
  *
+ * <p>Key hash codes are scrambled by the {@link HashMixer} chosen at construction
+ * (spreading of high bits by default), optionally with a per-instance seed.
+ *
+ * <p>Entries are inserted by the {@link ProbingPolicy} chosen at construction: plain
+ * linear probing by default, or Robin Hood hashing, which bounds the variance of
+ * probe lengths and stops unsuccessful lookups early.
+ *
+ * <p>Removal uses backward shift deletion: the entries following the removed one in
+ * its cluster are moved back into the gap where their probe sequence allows it, so
+ * the table never contains tombstones.
+ *
+ * <p>By default the table grows all at once; large tables are rehashed in parallel
+ * on the common fork-join pool. Under the incremental
+ * {@link ResizePolicy} the old table is kept after growth and drained a few buckets
+ * per operation, with lookups consulting both tables until it is empty.
+ *
+ * <p>The bulk operations <tt>getAll</tt> and <tt>putAll</tt> hash groups of keys and
+ * load their home buckets before probing them, so that their cache misses overlap.
+ *
+ * <p>A map can be written to a channel as a snapshot of its table, and read back
+ * into a map with the identical bucket layout without calling <tt>hashCode</tt>.
+ *
+ * <p>The mappings are walked in the order of the table by <tt>forEach</tt> and the
+ * <tt>keySet</tt> and <tt>values</tt> views, none of which allocates per mapping. All
+ * of them fail fast if the map is structurally modified during the walk. The stream
+ * of entries splits the table by ranges of buckets for parallel scans.
+ *
+ * <p>With the system property <tt>com.vodotiiets.statistics=true</tt> maps record
+ * probe lengths and resizes, exposed with the occupancy by {@link #statistics()} and
+ * {@link #statisticsMXBean()}. The switch is a static final, so it costs nothing
+ * when off.
+ *
  * @see HashMap
  *
  * Created by Denys Vodotiiets.
@@ -41,6 +99,51 @@ public class OpenAddressingHashMap<K, V> implements HashMap<K, V> {
      */
     private static final float DEFAULT_LOAD_FACTOR = 0.75f;
 
+    /**
+     * The number of buckets of the previous table moved by every operation
+     * during an incremental resize. Large enough for the migration to finish
+     * long before the new table reaches its own threshold.
+     */
+    private static final int MIGRATION_STEP = 16;
+
+    /**
+     * Placeholder of a moved or removed node in the previous table during an
+     * incremental resize. Keeps probe sequences of that table unbroken.
+     */
+    private static final Node<?,?> TOMBSTONE = new Node<>(0, null, null);
+
+    /**
+     * The number of keys whose home buckets are loaded together by the
+     * bulk operations.
+     */
+    private static final int BATCH_SIZE = 16;
+
+    /**
+     * The magic number of snapshots, "OAHG".
+     */
+    private static final int SNAPSHOT_MAGIC = 0x4F414847;
+
+    /**
+     * The version of the snapshot format.
+     */
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * The size of the buffers of snapshot streams.
+     */
+    private static final int SNAPSHOT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The smallest table which is rehashed in parallel when it grows all at once.
+     */
+    private static final int PARALLEL_REHASH_CAPACITY = 1 << 16;
+
+    /**
+     * The approximate number of buckets of the old table rehashed by one task
+     * of a parallel rehash.
+     */
+    private static final int REHASH_RANGE = 1 << 13;
+
     /**
      * Basic hash bin node
      */
@@ -89,15 +192,6 @@ public class OpenAddressingHashMap<K, V> implements HashMap<K, V> {
         }
     }
 
-    /**
-     * Computes key.hashCode() and spreads (XORs) higher bits of hash
-     * to lower.
-     */
-    private static int hash(Object key) {
-        int h;
-        return (key == null) ? 0 : (h = key.hashCode()) ^ (h >>> 16);
-    }
-
     /**
      * Returns a power of two size for the given target capacity.
      */
@@ -123,6 +217,17 @@ public class OpenAddressingHashMap<K, V> implements HashMap<K, V> {
      */
     private int size;
 
+    /**
+     * The number of times this map has been structurally modified, used
+     * to make iteration fail fast.
+     */
+    private int modCount;
+
+    /**
+     * The counters of the statistics mode, or null if it is off.
+     */
+    private final StatisticsRecorder statistics = StatisticsRecorder.ENABLED ? new StatisticsRecorder() : null;
+
     /**
      * The load factor for the hash map.
      */
@@ -133,16 +238,52 @@ public class OpenAddressingHashMap<K, V> implements HashMap<K, V> {
      */
     private int threshold;
 
+    /**
+     * The mixer applied to key hash codes.
+     */
+    private final HashMixer mixer;
+
+    /**
+     * The seed of the mixer.
+     */
+    private final int seed;
+
+    /**
+     * Whether entries are inserted by the Robin Hood policy.
+     */
+    private final boolean robinHood;
+
+    /**
+     * Whether the table is grown by incremental migration.
+     */
+    private final boolean incremental;
+
+    /**
+     * The table being migrated from during an incremental resize, or null.
+     * Its migrated and removed buckets hold <tt>TOMBSTONE</tt>.
+     */
+    private Node<K,V>[] previousTable;
+
+    /**
+     * The next bucket of the previous table to migrate.
+     */
+    private int migrationIndex;
+
     /**
      * Constructs an empty <tt>OpenAddressingHashMap</tt> with the specified initial
-     * capacity and load factor.
+     * capacity, load factor, hash mixer, probing policy and resize policy.
      *
      * @param  initialCapacity the initial capacity
      * @param  loadFactor      the load factor
-     * @throws IllegalArgumentException if the initial capacity is negative
-     *         or the load factor is nonpositive
+     * @param  mixer           the mixer applied to key hash codes
+     * @param  seed            the seed of the mixer, e.g. {@link HashMixer#randomSeed()}
+     * @param  probingPolicy   the insertion policy of the probe sequence
+     * @param  resizePolicy    the policy of moving entries into a grown table
+     * @throws IllegalArgumentException if the initial capacity is negative,
+     *         the load factor is nonpositive or the mixer or a policy is null
      */
-    public OpenAddressingHashMap(int initialCapacity, float loadFactor) {
+    public OpenAddressingHashMap(int initialCapacity, float loadFactor, HashMixer mixer, int seed,
+                                 ProbingPolicy probingPolicy, ResizePolicy resizePolicy) {
         if (initialCapacity < 0) {
             throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
         }
@@ -155,8 +296,69 @@ public class OpenAddressingHashMap<K, V> implements HashMap<K, V> {
             throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
         }
 
+        if (mixer == null) {
+            throw new IllegalArgumentException("Illegal hash mixer: " + mixer);
+        }
+
+        if (probingPolicy == null) {
+            throw new IllegalArgumentException("Illegal probing policy: " + probingPolicy);
+        }
+
+        if (resizePolicy == null) {
+            throw new IllegalArgumentException("Illegal resize policy: " + resizePolicy);
+        }
+
         this.loadFactor = loadFactor;
         this.threshold = tableSizeFor(initialCapacity);
+        this.mixer = mixer;
+        this.seed = seed;
+        this.robinHood = probingPolicy == ProbingPolicy.ROBIN_HOOD;
+        this.incremental = resizePolicy == ResizePolicy.INCREMENTAL;
+    }
+
+    /**
+     * Constructs an empty <tt>OpenAddressingHashMap</tt> with the specified initial
+     * capacity, load factor, hash mixer and probing policy.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor
+     * @param  mixer           the mixer applied to key hash codes
+     * @param  seed            the seed of the mixer, e.g. {@link HashMixer#randomSeed()}
+     * @param  probingPolicy   the insertion policy of the probe sequence
+     * @throws IllegalArgumentException if the initial capacity is negative,
+     *         the load factor is nonpositive or the mixer or policy is null
+     */
+    public OpenAddressingHashMap(int initialCapacity, float loadFactor, HashMixer mixer, int seed,
+                                 ProbingPolicy probingPolicy) {
+        this(initialCapacity, loadFactor, mixer, seed, probingPolicy, ResizePolicy.ALL_AT_ONCE);
+    }
+
+    /**
+     * Constructs an empty <tt>OpenAddressingHashMap</tt> with the specified initial
+     * capacity, load factor and hash mixer.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor
+     * @param  mixer           the mixer applied to key hash codes
+     * @param  seed            the seed of the mixer, e.g. {@link HashMixer#randomSeed()}
+     * @throws IllegalArgumentException if the initial capacity is negative,
+     *         the load factor is nonpositive or the mixer is null
+     */
+    public OpenAddressingHashMap(int initialCapacity, float loadFactor, HashMixer mixer, int seed) {
+        this(initialCapacity, loadFactor, mixer, seed, ProbingPolicy.LINEAR);
+    }
+
+    /**
+     * Constructs an empty <tt>OpenAddressingHashMap</tt> with the specified initial
+     * capacity and load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is nonpositive
+     */
+    public OpenAddressingHashMap(int initialCapacity, float loadFactor) {
+        this(initialCapacity, loadFactor, HashMixer.SPREAD, 0);
     }
 
     /**
@@ -176,6 +378,10 @@ public class OpenAddressingHashMap<K, V> implements HashMap<K, V> {
      */
     public OpenAddressingHashMap() {
         this.loadFactor = DEFAULT_LOAD_FACTOR;
+        this.mixer = HashMixer.SPREAD;
+        this.seed = 0;
+        this.robinHood = false;
+        this.incremental = false;
     }
 
     /**
@@ -231,62 +437,113 @@ public class OpenAddressingHashMap<K, V> implements HashMap<K, V> {
             throw new IllegalArgumentException("Illegal key: " + key);
         }
 
+        Node<K,V>[] tab;
         Node<K,V> currentNode;
-        int length, startIndex, currentIndex;
-        boolean checkPut = false;
+        int length, currentIndex, distance = 0;
+        K currentKey;
 
-        if (table == null || (length = table.length) == 0) {
-            length = (table = resize()).length;
+        if ((tab = table) == null || (length = tab.length) == 0) {
+            length = (tab = resize()).length;
         }
 
-        if ((currentNode = table[startIndex = currentIndex = (length - 1) & hash]) == null) {
-            table[startIndex] = newNode(hash, key, value);
-            size++;
-            checkPut = true;
-        } else {
-            K currentKey;
+        if (previousTable != null) {
+            migrate(MIGRATION_STEP);
+        }
+
+        int mask = length - 1;
+        currentIndex = mask & hash;
 
+        while (distance < length && (currentNode = tab[currentIndex]) != null) {
             if (currentNode.hash == hash &&
                     ((currentKey = currentNode.key) == key || key.equals(currentKey))) {
+                if (StatisticsRecorder.ENABLED) {
+                    statistics.recordProbe(StatisticsRecorder.PUT_HIT, distance);
+                }
                 if (currentNode.value == null || !onlyIfAbsent) {
                     currentNode.setValue(value);
                     return true;
                 } else {
                     return false;
                 }
-            } else {
-                currentIndex = (length - 1) & (currentIndex + 1);
-                while (startIndex != currentIndex) {
-                    if ((currentNode = table[currentIndex]) == null) {
-                        table[currentIndex] = newNode(hash, key, value);
-                        size++;
-                        checkPut = true;
-                        break;
-                    }
+            }
 
-                    if (currentNode.hash == hash &&
-                            ((currentKey = currentNode.key) == key || key.equals(currentKey))) {
-                        if (currentNode.value == null || !onlyIfAbsent) {
-                            currentNode.setValue(value);
-                            return true;
-                        } else {
-                            return false;
-                        }
-                    }
-                    currentIndex = (length - 1) & (currentIndex + 1);
-                }
+            if (robinHood && probeDistance(currentNode.hash, currentIndex, mask) < distance) {
+                break;
             }
+            currentIndex = mask & (currentIndex + 1);
+            distance++;
         }
-        if (!checkPut && threshold != Integer.MAX_VALUE) {
+
+        if (size >= length) {
+            if (length >= MAXIMUM_CAPACITY) {
+                return false;
+            }
             resize();
-            putValue(hash, key, value, onlyIfAbsent);
+            return putValue(hash, key, value, onlyIfAbsent);
+        }
+
+        Node<K,V>[] previous;
+        int previousIndex;
+        if ((previous = previousTable) != null &&
+                (previousIndex = findIndex(previous, hash, key, false)) >= 0) {
+            // not migrated yet: move the node along with the update
+            currentNode = previous[previousIndex];
+            if (StatisticsRecorder.ENABLED) {
+                statistics.recordProbe(StatisticsRecorder.PUT_HIT, distance);
+            }
+            if (currentNode.value != null && onlyIfAbsent) {
+                return false;
+            }
+            previous[previousIndex] = tombstone();
+            currentNode.setValue(value);
+        } else {
+            if (StatisticsRecorder.ENABLED) {
+                statistics.recordProbe(StatisticsRecorder.PUT_MISS, distance);
+            }
+            currentNode = newNode(hash, key, value);
+            size++;
+        }
+
+        modCount++;
+        if (robinHood) {
+            shiftInsert(tab, currentIndex, currentNode);
+        } else {
+            tab[currentIndex] = currentNode;
         }
 
         if (size > threshold) {
             resize();
         }
 
-        return checkPut;
+        return true;
+    }
+
+    /**
+     * Puts the node into the given bucket, moving the rest of the cluster
+     * one bucket forward. Robin Hood clusters are ordered by home bucket,
+     * so the shifted nodes stay in order.
+     *
+     * @param tab the table
+     * @param index the bucket taken by the node
+     * @param node the node to put
+     */
+    private void shiftInsert(Node<K,V>[] tab, int index, Node<K,V> node) {
+        Node<K,V> displacedNode;
+        int mask = tab.length - 1;
+
+        while ((displacedNode = tab[index]) != null) {
+            tab[index] = node;
+            node = displacedNode;
+            index = mask & (index + 1);
+        }
+        tab[index] = node;
+    }
+
+    /**
+     * Returns the distance of the bucket from the home bucket of the hash.
+     */
+    private static int probeDistance(int hash, int index, int mask) {
+        return mask & (index - (mask & hash));
     }
 
     /**
@@ -303,10 +560,700 @@ public class OpenAddressingHashMap<K, V> implements HashMap<K, V> {
             throw new IllegalArgumentException("Illegal key: " + key);
         }
 
+        if (previousTable != null) {
+            migrate(MIGRATION_STEP);
+        }
+
         Node<K,V> e;
         return (e = getNode(hash(key), key)) == null ? null : e.value;
     }
 
+    /**
+     * Looks up every key at once. The value of <tt>keys[i]</tt> is stored into
+     * <tt>values[i]</tt>, or {@code null} if the map has no such key, in which case
+     * bit <tt>i % 64</tt> of <tt>missing[i / 64]</tt> is set; the other bits are
+     * cleared. The keys are handled in groups: a whole group is hashed and its home
+     * buckets are loaded first, so that their cache misses overlap, and then the
+     * group is probed.
+     *
+     * @param keys the keys
+     * @param values the values found, at least as many as keys
+     * @param missing the bitmap of missing keys, at least <tt>(keys.length + 63) / 64</tt> words
+     * @return the number of keys found
+     * @throws IllegalArgumentException if an array or a key is null, or an array is too short
+     */
+    public int getAll(Object[] keys, V[] values, long[] missing) {
+        if (keys == null || values == null || missing == null
+                || values.length < keys.length || missing.length < (keys.length + 63) >>> 6) {
+            throw new IllegalArgumentException("Illegal arrays: " + keys + ", " + values + ", " + missing);
+        }
+
+        int[] hashes = new int[BATCH_SIZE];
+        Object[] firstNodes = new Object[BATCH_SIZE];
+        int found = 0;
+
+        Arrays.fill(missing, 0, (keys.length + 63) >>> 6, 0L);
+
+        for (int start = 0; start < keys.length; start += BATCH_SIZE) {
+            int end = Math.min(start + BATCH_SIZE, keys.length);
+
+            if (previousTable != null) {
+                migrate(MIGRATION_STEP);
+            }
+
+            for (int i = start; i < end; i++) {
+                if (keys[i] == null) {
+                    throw new IllegalArgumentException("Illegal key: " + keys[i]);
+                }
+                hashes[i - start] = hash(keys[i]);
+            }
+
+            Node<K,V>[] tab = table;
+            if (tab != null) {
+                int mask = tab.length - 1;
+                for (int i = start; i < end; i++) {
+                    firstNodes[i - start] = tab[mask & hashes[i - start]];
+                }
+            }
+
+            for (int i = start; i < end; i++) {
+                Object key = keys[i];
+                int hash = hashes[i - start];
+                @SuppressWarnings("unchecked")
+                Node<K,V> node = (Node<K,V>)firstNodes[i - start];
+                K currentKey;
+
+                if (node == null || node.hash != hash ||
+                        ((currentKey = node.key) != key && !key.equals(currentKey))) {
+                    node = getNode(hash, key);
+                }
+
+                if (node != null) {
+                    values[i] = node.value;
+                    found++;
+                } else {
+                    values[i] = null;
+                    missing[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Associates each key with the value at the same index, as {@link #put} would.
+     * The keys are handled in groups: a whole group is hashed and its home buckets
+     * are loaded first, so that their cache misses overlap, and then the group is
+     * put. A key already held by its home bucket gets its value replaced without
+     * probing again.
+     *
+     * @param keys the keys
+     * @param values the values, at least as many as keys
+     * @return the number of additions which occurred
+     * @throws IllegalArgumentException if an array or a key is null, or values is too short
+     */
+    public int putAll(K[] keys, V[] values) {
+        if (keys == null || values == null || values.length < keys.length) {
+            throw new IllegalArgumentException("Illegal arrays: " + keys + ", " + values);
+        }
+
+        int[] hashes = new int[BATCH_SIZE];
+        Object[] firstNodes = new Object[BATCH_SIZE];
+        int added = 0;
+
+        for (int start = 0; start < keys.length; start += BATCH_SIZE) {
+            int end = Math.min(start + BATCH_SIZE, keys.length);
+
+            if (previousTable != null) {
+                migrate(MIGRATION_STEP);
+            }
+
+            for (int i = start; i < end; i++) {
+                if (keys[i] == null) {
+                    throw new IllegalArgumentException("Illegal key: " + keys[i]);
+                }
+                hashes[i - start] = hash(keys[i]);
+            }
+
+            Node<K,V>[] tab = table;
+            if (tab != null) {
+                int mask = tab.length - 1;
+                for (int i = start; i < end; i++) {
+                    firstNodes[i - start] = tab[mask & hashes[i - start]];
+                }
+            } else {
+                Arrays.fill(firstNodes, null);
+            }
+
+            for (int i = start; i < end; i++) {
+                K key = keys[i];
+                int hash = hashes[i - start];
+                @SuppressWarnings("unchecked")
+                Node<K,V> node = (Node<K,V>)firstNodes[i - start];
+                K currentKey;
+
+                // a key found in its home bucket is replaced in place, as putValue would
+                if (node != null && node.hash == hash &&
+                        ((currentKey = node.key) == key || key.equals(currentKey))) {
+                    node.setValue(values[i]);
+                    added++;
+                } else if (putValue(hash, key, values[i], false)) {
+                    added++;
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return <tt>true</tt> if the removal occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    public boolean remove(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Illegal key: " + key);
+        }
+
+        Node<K,V>[] previous;
+        int index, hash = hash(key);
+
+        if ((previous = previousTable) != null) {
+            migrate(MIGRATION_STEP);
+        }
+
+        if ((index = findIndex(table, hash, key, robinHood)) >= 0) {
+            shiftNodes(table, index);
+        } else if ((previous = previousTable) != null &&
+                (index = findIndex(previous, hash, key, false)) >= 0) {
+            previous[index] = tombstone();
+        } else {
+            return false;
+        }
+
+        modCount++;
+        size--;
+        return true;
+    }
+
+    /**
+     * Performs the given action for each mapping of this map, in the order of
+     * the table. An incremental resize in progress is completed first.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws IllegalArgumentException if the action is null
+     * @throws ConcurrentModificationException if the action structurally modifies the map
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Illegal action: " + action);
+        }
+
+        if (previousTable != null) {
+            migrate(Integer.MAX_VALUE);
+        }
+
+        Node<K,V>[] tab;
+        if ((tab = table) == null) {
+            return;
+        }
+
+        Node<K,V> currentNode;
+        int expectedModCount = modCount;
+        for (int j = 0; j < tab.length; ++j) {
+            if ((currentNode = tab[j]) != null) {
+                action.accept(currentNode.key, currentNode.value);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a read-only {@link Set} view of the keys contained in this map,
+     * iterated in the order of the table. The set is backed by the map, so changes
+     * to the map are reflected in the set. Its iterators fail fast if the map is
+     * structurally modified.
+     *
+     * @return a set view of the keys contained in this map
+     */
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    /**
+     * Returns a read-only {@link Collection} view of the values contained in this
+     * map, iterated in the order of the table. The collection is backed by the map,
+     * so changes to the map are reflected in the collection. Its iterators fail
+     * fast if the map is structurally modified.
+     *
+     * @return a collection view of the values contained in this map
+     */
+    public Collection<V> values() {
+        return new Values();
+    }
+
+    /**
+     * Returns a stream of the mappings of this map. The entries are the nodes of
+     * the table themselves, so the stream allocates no entry objects, and it is
+     * split by ranges of buckets, so a parallel stream scans the table on all cores.
+     * An incremental resize in progress is completed first. The stream fails fast
+     * if the map is structurally modified.
+     *
+     * @param parallel whether the stream is parallel
+     * @return a stream of the mappings, in the order of the table
+     */
+    public Stream<Map.Entry<K,V>> entryStream(boolean parallel) {
+        if (previousTable != null) {
+            migrate(Integer.MAX_VALUE);
+        }
+
+        Node<K,V>[] tab = table;
+        return StreamSupport.stream(new EntrySpliterator(tab, 0, tab == null ? 0 : tab.length, size, modCount),
+                parallel);
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this map. The size, capacity, load
+     * factor and longest cluster are always available, the latter at the cost of a
+     * scan of the table; probe lengths and resizes of the single-key operations
+     * are only recorded in the statistics mode. Under the incremental resize
+     * policy the recorded duration of a resize leaves out the migration.
+     *
+     * @return a snapshot of the statistics
+     */
+    public MapStatistics statistics() {
+        return new MapStatistics(size, capacity(), maxClusterLength(), statistics);
+    }
+
+    /**
+     * Returns an MXBean which reads the statistics of this map live, to be
+     * registered with an <tt>MBeanServer</tt>.
+     *
+     * @return the statistics MXBean of this map
+     */
+    public MapStatisticsMXBean statisticsMXBean() {
+        return new StatisticsBean(this::size, this::capacity, this::maxClusterLength, statistics);
+    }
+
+    /**
+     * Returns the number of buckets of the table.
+     */
+    private int capacity() {
+        Node<K,V>[] tab = table;
+        return tab == null ? 0 : tab.length;
+    }
+
+    /**
+     * Returns the length of the longest run of used buckets, scanning the
+     * table from an unused bucket so that a run which wraps around is
+     * measured whole.
+     */
+    private int maxClusterLength() {
+        Node<K,V>[] tab = table;
+        int length = tab == null ? 0 : tab.length;
+        int start = 0;
+
+        while (start < length && tab[start] != null) {
+            start++;
+        }
+        if (start == length) {
+            return length;
+        }
+
+        int clusterLength = 0, maxLength = 0;
+        for (int i = start + 1; i <= start + length; i++) {
+            if (tab[i < length ? i : i - length] != null) {
+                maxLength = Math.max(maxLength, ++clusterLength);
+            } else {
+                clusterLength = 0;
+            }
+        }
+        return maxLength;
+    }
+
+    private final class KeySet extends AbstractSet<K> {
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(Object o) {
+            return o != null && getNode(hash(o), o) != null;
+        }
+
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+    }
+
+    private final class Values extends AbstractCollection<V> {
+        public int size() {
+            return size;
+        }
+
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+    }
+
+    /**
+     * Spliterator over the nodes of a range of buckets. Splitting halves the
+     * range and its estimate, so only the unsplit spliterator knows its exact size.
+     */
+    private final class EntrySpliterator implements Spliterator<Map.Entry<K,V>> {
+        private final Node<K,V>[] tab;
+        private int index;
+        private final int fence;
+        private long estimate;
+        private boolean sized = true;
+        private final int expectedModCount;
+
+        EntrySpliterator(Node<K,V>[] tab, int origin, int fence, long estimate, int expectedModCount) {
+            this.tab = tab;
+            this.index = origin;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.expectedModCount = expectedModCount;
+        }
+
+        public EntrySpliterator trySplit() {
+            int middle = (index + fence) >>> 1;
+            if (middle <= index) {
+                return null;
+            }
+
+            sized = false;
+            EntrySpliterator prefix = new EntrySpliterator(tab, index, middle, estimate >>>= 1, expectedModCount);
+            prefix.sized = false;
+            index = middle;
+            return prefix;
+        }
+
+        public boolean tryAdvance(Consumer<? super Map.Entry<K,V>> action) {
+            Node<K,V> currentNode;
+
+            while (index < fence) {
+                if ((currentNode = tab[index++]) != null) {
+                    if (estimate > 0) {
+                        estimate--;
+                    }
+                    action.accept(currentNode);
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void forEachRemaining(Consumer<? super Map.Entry<K,V>> action) {
+            Node<K,V> currentNode;
+
+            for (int j = index; j < fence; ++j) {
+                if ((currentNode = tab[j]) != null) {
+                    action.accept(currentNode);
+                }
+            }
+
+            index = fence;
+            estimate = 0;
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        public long estimateSize() {
+            return estimate;
+        }
+
+        public int characteristics() {
+            return (sized ? Spliterator.SIZED : 0) | Spliterator.ORDERED
+                    | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * Iterator over the nodes of the table. An incremental resize in progress
+     * is completed when the iterator is created, so that it walks one table.
+     */
+    private abstract class HashIterator {
+        private final Node<K,V>[] tab;
+        private final int expectedModCount;
+        private Node<K,V> next;
+        private int index;
+
+        HashIterator() {
+            if (previousTable != null) {
+                migrate(Integer.MAX_VALUE);
+            }
+            tab = table;
+            expectedModCount = modCount;
+            advance();
+        }
+
+        public final boolean hasNext() {
+            return next != null;
+        }
+
+        final Node<K,V> nextNode() {
+            Node<K,V> currentNode = next;
+
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (currentNode == null) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return currentNode;
+        }
+
+        private void advance() {
+            Node<K,V> currentNode = null;
+
+            if (tab != null) {
+                while (currentNode == null && index < tab.length) {
+                    currentNode = tab[index++];
+                }
+            }
+            next = currentNode;
+        }
+    }
+
+    private final class KeyIterator extends HashIterator implements Iterator<K> {
+        public K next() {
+            return nextNode().key;
+        }
+    }
+
+    private final class ValueIterator extends HashIterator implements Iterator<V> {
+        public V next() {
+            return nextNode().value;
+        }
+    }
+
+    /**
+     * Writes a snapshot of this map to the channel: a header with the parameters
+     * of the map followed by every used bucket as its varint distance from the
+     * previous used bucket, the hash of its key, the key and the value. An
+     * incremental resize in progress is completed first. The channel is not closed.
+     *
+     * @param channel the channel to write to
+     * @param keyCodec the encoding of keys
+     * @param valueCodec the encoding of values
+     * @throws IllegalArgumentException if the channel or a codec is null
+     * @throws IOException if writing to the channel fails
+     */
+    public void writeSnapshot(WritableByteChannel channel, SnapshotCodec<? super K> keyCodec,
+                              SnapshotCodec<? super V> valueCodec) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Illegal channel: " + channel);
+        }
+
+        if (keyCodec == null) {
+            throw new IllegalArgumentException("Illegal key codec: " + keyCodec);
+        }
+
+        if (valueCodec == null) {
+            throw new IllegalArgumentException("Illegal value codec: " + valueCodec);
+        }
+
+        if (previousTable != null) {
+            migrate(Integer.MAX_VALUE);
+        }
+
+        Node<K,V>[] tab = table;
+        int length = tab == null ? 0 : tab.length;
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel), SNAPSHOT_BUFFER_SIZE));
+
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(mixer.ordinal());
+        out.writeInt(seed);
+        out.writeFloat(loadFactor);
+        out.writeBoolean(robinHood);
+        out.writeBoolean(incremental);
+        out.writeInt(length);
+        out.writeInt(threshold);
+        out.writeInt(size);
+
+        Node<K,V> currentNode;
+        int previousIndex = -1;
+        for (int j = 0; j < length; ++j) {
+            if ((currentNode = tab[j]) != null) {
+                writeVarInt(out, j - previousIndex);
+                out.writeInt(currentNode.hash);
+                keyCodec.write(currentNode.key, out);
+                out.writeBoolean(currentNode.value != null);
+                if (currentNode.value != null) {
+                    valueCodec.write(currentNode.value, out);
+                }
+                previousIndex = j;
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a map from a snapshot written by {@link #writeSnapshot}. Every node is
+     * restored into its bucket with its stored hash, so neither <tt>hashCode</tt>
+     * nor <tt>equals</tt> is called. The reader may consume bytes of the channel
+     * past the end of the snapshot.
+     *
+     * @param channel the channel to read from
+     * @param keyCodec the encoding of keys
+     * @param valueCodec the encoding of values
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @return the map
+     * @throws IllegalArgumentException if the channel or a codec is null
+     * @throws StreamCorruptedException if the data is not a valid snapshot
+     * @throws IOException if reading from the channel fails
+     */
+    public static <K,V> OpenAddressingHashMap<K,V> readSnapshot(ReadableByteChannel channel,
+                                                              SnapshotCodec<K> keyCodec,
+                                                              SnapshotCodec<V> valueCodec) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Illegal channel: " + channel);
+        }
+
+        if (keyCodec == null) {
+            throw new IllegalArgumentException("Illegal key codec: " + keyCodec);
+        }
+
+        if (valueCodec == null) {
+            throw new IllegalArgumentException("Illegal value codec: " + valueCodec);
+        }
+
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(channel), SNAPSHOT_BUFFER_SIZE));
+
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new StreamCorruptedException("Not a snapshot");
+        }
+
+        int version = in.readInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new StreamCorruptedException("Unsupported snapshot version: " + version);
+        }
+
+        int mixer = in.readInt();
+        int seed = in.readInt();
+        float loadFactor = in.readFloat();
+        boolean robinHood = in.readBoolean();
+        boolean incremental = in.readBoolean();
+        int length = in.readInt();
+        int threshold = in.readInt();
+        int size = in.readInt();
+
+        if (mixer < 0 || mixer >= HashMixer.values().length || !(loadFactor > 0)
+                || length < 0 || length > MAXIMUM_CAPACITY || (length & (length - 1)) != 0
+                || size < 0 || size > length) {
+            throw new StreamCorruptedException("Illegal snapshot header");
+        }
+
+        // an empty table keeps its initial capacity in threshold, a power of two
+        if (length == 0 ? threshold < 0 || threshold > MAXIMUM_CAPACITY || (threshold & (threshold - 1)) != 0
+                : threshold < size || (threshold > length
+                        && (length < MAXIMUM_CAPACITY || threshold != Integer.MAX_VALUE))) {
+            throw new StreamCorruptedException("Illegal snapshot threshold: " + threshold);
+        }
+
+        OpenAddressingHashMap<K,V> map = new OpenAddressingHashMap<>(0, loadFactor, HashMixer.values()[mixer], seed,
+                robinHood ? ProbingPolicy.ROBIN_HOOD : ProbingPolicy.LINEAR,
+                incremental ? ResizePolicy.INCREMENTAL : ResizePolicy.ALL_AT_ONCE);
+        map.threshold = threshold;
+
+        if (length > 0) {
+            Node<K,V>[] tab = newTable(length);
+            int index = -1;
+            for (int i = 0; i < size; i++) {
+                int distance = readVarInt(in);
+                if (distance <= 0 || distance >= length - index) {
+                    throw new StreamCorruptedException("Illegal bucket distance: " + distance);
+                }
+                index += distance;
+
+                int hash = in.readInt();
+                K key = keyCodec.read(in);
+                if (key == null) {
+                    throw new StreamCorruptedException("Illegal key: " + key);
+                }
+                tab[index] = new Node<>(hash, key, in.readBoolean() ? valueCodec.read(in) : null);
+            }
+            map.table = tab;
+        }
+
+        map.size = size;
+        return map;
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint, 1 to 5 bytes.
+     */
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     */
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    /**
+     * Closes the gap left by a removed node. Every following node of the
+     * cluster whose home bucket does not lie cyclically in (gap, current] is
+     * moved back into the gap, which then moves to the vacated bucket.
+     *
+     * @param tab the table
+     * @param gap index of the removed node
+     */
+    private void shiftNodes(Node<K,V>[] tab, int gap) {
+        Node<K,V> currentNode;
+        int mask = tab.length - 1;
+        int currentIndex = gap;
+        int homeIndex;
+
+        while ((currentNode = tab[currentIndex = mask & (currentIndex + 1)]) != null
+                && currentIndex != gap) {
+            homeIndex = mask & currentNode.hash;
+            if (gap <= currentIndex ? (homeIndex <= gap || homeIndex > currentIndex)
+                    : (homeIndex <= gap && homeIndex > currentIndex)) {
+                tab[gap] = currentNode;
+                gap = currentIndex;
+            }
+        }
+
+        tab[gap] = null;
+    }
+
+    /**
+     * Computes key.hashCode() and scrambles it with the mixer of this map.
+     */
+    private int hash(Object key) {
+        return (key == null) ? 0 : mixer.mix(key.hashCode(), seed);
+    }
+
     /**
      * Implements OpenAddressingHashMap.get and related methods
      *
@@ -315,43 +1262,151 @@ public class OpenAddressingHashMap<K, V> implements HashMap<K, V> {
      * @return the node, or null if none
      */
     private Node<K,V> getNode(int hash, Object key) {
+        Node<K,V>[] tab = table, previous;
+        int index, previousIndex;
+
+        if ((index = findIndex(tab, hash, key, robinHood)) >= 0) {
+            if (StatisticsRecorder.ENABLED) {
+                recordProbe(StatisticsRecorder.GET_HIT, hash, index, tab);
+            }
+            return tab[index];
+        }
+        if ((previous = previousTable) != null && (previousIndex = findIndex(previous, hash, key, false)) >= 0) {
+            if (StatisticsRecorder.ENABLED) {
+                recordProbe(StatisticsRecorder.GET_HIT, hash, previousIndex, previous);
+            }
+            return previous[previousIndex];
+        }
+        if (StatisticsRecorder.ENABLED && tab != null) {
+            recordProbe(StatisticsRecorder.GET_MISS, hash, ~index, tab);
+        }
+        return null;
+    }
+
+    /**
+     * Records the distance from the home bucket of the hash to the bucket
+     * where its probe ended.
+     */
+    private void recordProbe(int operation, int hash, int index, Node<K,V>[] tab) {
+        statistics.recordProbe(operation, probeDistance(hash, index, tab.length - 1));
+    }
+
+    /**
+     * Finds the bucket holding the key. A miss stops at the first unused
+     * bucket, or, under the Robin Hood policy, at the first node which is
+     * closer to its home bucket than the probe is.
+     *
+     * @param tab the table to search
+     * @param hash hash for key
+     * @param key the key
+     * @param robinHood whether the table is ordered by the Robin Hood policy
+     * @return index of the bucket, or <tt>~index</tt> of the bucket where the
+     *         probe stopped if none
+     */
+    private int findIndex(Node<K,V>[] tab, int hash, Object key, boolean robinHood) {
         Node<K,V> currentNode;
         int length;
         K currentKey;
-        int startIndex, currentIndex;
 
-        if ( table != null && (length = table.length) > 0 &&
-                (currentNode = table[(startIndex = currentIndex = (length - 1) & hash)]) != null) {
+        if (tab == null || (length = tab.length) == 0) {
+            return -1;
+        }
+
+        int mask = length - 1;
+        int currentIndex = mask & hash;
+
+        for (int distance = 0; distance < length && (currentNode = tab[currentIndex]) != null; distance++) {
             if (currentNode.hash == hash &&
                     ((currentKey = currentNode.key) == key || (key != null && key.equals(currentKey)))) {
-                return currentNode;
+                return currentIndex;
             }
 
-            currentIndex = (length - 1) & (currentIndex + 1);
-            while (startIndex != currentIndex) {
-                if ((currentNode = table[currentIndex]) != null){
-                    if (currentNode.hash == hash &&
-                            ((currentKey = currentNode.key) == key || (key != null && key.equals(currentKey)))) {
-                        return currentNode;
-                    }
-                    currentIndex = (length - 1) & (currentIndex + 1);
-                } else {
-                    return null;
-                }
+            if (robinHood && probeDistance(currentNode.hash, currentIndex, mask) < distance) {
+                return ~currentIndex;
             }
+            currentIndex = mask & (currentIndex + 1);
         }
-        return null;
+        return ~currentIndex;
+    }
+
+    /**
+     * Moves up to the given number of buckets of the previous table into
+     * the current one, and drops the previous table once all are moved.
+     *
+     * @param buckets the number of buckets to move
+     */
+    private void migrate(int buckets) {
+        Node<K,V>[] previous = previousTable;
+        Node<K,V> currentNode;
+        int end = (int)Math.min((long)migrationIndex + buckets, previous.length);
+
+        for (int j = migrationIndex; j < end; ++j) {
+            if ((currentNode = previous[j]) != null && currentNode != TOMBSTONE) {
+                insertNode(table, currentNode);
+                previous[j] = tombstone();
+            }
+        }
+
+        migrationIndex = end;
+        if (end == previous.length) {
+            previousTable = null;
+        }
+    }
+
+    /**
+     * Puts a node whose key is known to be absent into the table, by
+     * the probing policy of this map.
+     *
+     * @param tab the table
+     * @param node the node to put
+     */
+    private void insertNode(Node<K,V>[] tab, Node<K,V> node) {
+        Node<K,V> currentNode;
+        int mask = tab.length - 1;
+        int currentIndex = mask & node.hash;
+
+        for (int distance = 0; (currentNode = tab[currentIndex]) != null; distance++) {
+            if (robinHood && probeDistance(currentNode.hash, currentIndex, mask) < distance) {
+                shiftInsert(tab, currentIndex, node);
+                return;
+            }
+            currentIndex = mask & (currentIndex + 1);
+        }
+        tab[currentIndex] = node;
+    }
+
+    /**
+     * Allocates a table of the given length.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K,V> Node<K,V>[] newTable(int length) {
+        return (Node<K,V>[])new Node<?,?>[length];
+    }
+
+    /**
+     * Returns the shared tombstone node.
+     */
+    @SuppressWarnings("unchecked")
+    private static <K,V> Node<K,V> tombstone() {
+        return (Node<K,V>)TOMBSTONE;
     }
 
     /**
      * Initializes or doubles table size.  If null, allocates in
      * accord with initial capacity target held in field threshold.
-     * Otherwise, the elements from each bin must either stay at
-     * same index, or move with a power of two offset in the new table.
+     * Otherwise, every node is put into the new table by the probing policy,
+     * see {@link #rehash}. Under the incremental resize policy the old table
+     * is kept as the previous table and its nodes are moved by subsequent
+     * operations.
      *
      * @return the table
      */
     private Node<K,V>[] resize() {
+        if (previousTable != null) {
+            migrate(Integer.MAX_VALUE);
+        }
+
+        long start = StatisticsRecorder.ENABLED ? System.nanoTime() : 0;
         Node<K,V>[] oldTable = table;
         int oldCapacity = (oldTable == null) ? 0 : oldTable.length;
         int oldThreshold = threshold;
@@ -379,19 +1434,109 @@ public class OpenAddressingHashMap<K, V> implements HashMap<K, V> {
         }
         threshold = newThreshold;
 
-        Node<K,V>[] newTable = (Node<K,V>[])new Node[newCapacity];
+        Node<K,V>[] newTable = newTable(newCapacity);
         table = newTable;
+        modCount++;
+
+        if (oldTable != null && incremental) {
+            previousTable = oldTable;
+            migrationIndex = 0;
+        } else if (oldTable != null) {
+            rehash(oldTable, newTable);
+        }
+
+        if (StatisticsRecorder.ENABLED && oldTable != null) {
+            statistics.recordResize(System.nanoTime() - start);
+        }
+        return newTable;
+    }
+
+    /**
+     * Moves every node of the old table into the new one, which is twice as
+     * large. Large tables are split into ranges which start at unused buckets
+     * and are rehashed in parallel. The nodes of the range
+     * <tt>[from, to)</tt> of the old table have their home buckets in it, so in
+     * the new table they land in <tt>[from, to)</tt> or <tt>[from + oldCapacity,
+     * to + oldCapacity)</tt>: a subset of a cluster which ended before <tt>to</tt>
+     * cannot reach past <tt>to</tt> either. The ranges therefore write disjoint
+     * buckets and need no synchronization.
+     *
+     * @param oldTable the table to empty
+     * @param newTable the table of twice the length
+     */
+    private void rehash(Node<K,V>[] oldTable, Node<K,V>[] newTable) {
+        int oldCapacity = oldTable.length;
 
-        if (oldTable != null) {
-            for (int j = 0; j < oldCapacity; ++j) {
-                Node<K,V> currentNode;
-                if ((currentNode = oldTable[j]) != null) {
-                    oldTable[j] = null;
-                    newTable[currentNode.hash & (newCapacity - 1)] = currentNode;
+        if (oldCapacity >= PARALLEL_REHASH_CAPACITY && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            int[] bounds = new int[oldCapacity / REHASH_RANGE + 1];
+            int count = 0;
+
+            for (int start = 0; start < oldCapacity; start += REHASH_RANGE) {
+                int bound = start;
+                while (bound < oldCapacity && oldTable[bound] != null) {
+                    bound++;
+                }
+                if (bound < oldCapacity && (count == 0 || bound > bounds[count - 1])) {
+                    bounds[count++] = bound;
                 }
             }
+
+            if (count > 1) {
+                // the last range wraps around to the first bound
+                bounds[count] = bounds[0] + oldCapacity;
+                ForkJoinPool.commonPool().invoke(new RehashTask(oldTable, newTable, bounds, 0, count));
+                return;
+            }
+        }
+        rehashRange(oldTable, newTable, 0, oldCapacity);
+    }
+
+    /**
+     * Moves the nodes of the buckets <tt>[from, to)</tt> of the old table, taken
+     * modulo its length, into the new table.
+     */
+    private void rehashRange(Node<K,V>[] oldTable, Node<K,V>[] newTable, int from, int to) {
+        Node<K,V> currentNode;
+        int mask = oldTable.length - 1;
+
+        for (int j = from; j < to; ++j) {
+            if ((currentNode = oldTable[j & mask]) != null) {
+                oldTable[j & mask] = null;
+                insertNode(newTable, currentNode);
+            }
+        }
+    }
+
+    /**
+     * Rehashes the ranges between the bounds <tt>[first, last]</tt> of a
+     * parallel rehash, splitting them in halves down to a single range.
+     */
+    private final class RehashTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Node<K,V>[] oldTable;
+        private final Node<K,V>[] newTable;
+        private final int[] bounds;
+        private final int first;
+        private final int last;
+
+        RehashTask(Node<K,V>[] oldTable, Node<K,V>[] newTable, int[] bounds, int first, int last) {
+            this.oldTable = oldTable;
+            this.newTable = newTable;
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+        }
+
+        protected void compute() {
+            if (last - first == 1) {
+                rehashRange(oldTable, newTable, bounds[first], bounds[last]);
+            } else {
+                int middle = (first + last) >>> 1;
+                invokeAll(new RehashTask(oldTable, newTable, bounds, first, middle),
+                        new RehashTask(oldTable, newTable, bounds, middle, last));
+            }
         }
-        return newTable;
     }
 
     /**
@@ -0,0 +1,25 @@
+package com.vodotiiets;
+
+/**
+ * Insertion policies of the linear probe sequence of an <tt>OpenAddressingHashMap</tt>.
+ *
+ * @see OpenAddressingHashMap
+ *
+ * Created by Denys Vodotiiets.
+ */
+public enum ProbingPolicy {
+
+    /**
+     * A new entry takes the first unused bucket of its probe sequence. A miss
+     * scans up to the next unused bucket.
+     */
+    LINEAR,
+
+    /**
+     * Robin Hood hashing: a new entry takes the bucket of the first entry that is
+     * closer to its own home bucket, shifting the rest of the cluster forward. Probe
+     * distances have low variance, and a miss stops as soon as it meets an entry
+     * closer to home than the probe itself, which allows load factors of 0.85 - 0.9.
+     */
+    ROBIN_HOOD
+}
@@ -0,0 +1,24 @@
+package com.vodotiiets;
+
+/**
+ * Policies of moving entries into a grown table of an <tt>OpenAddressingHashMap</tt>.
+ *
+ * @see OpenAddressingHashMap
+ *
+ * Created by Denys Vodotiiets.
+ */
+public enum ResizePolicy {
+
+    /**
+     * All entries are moved by the operation which grows the table.
+     */
+    ALL_AT_ONCE,
+
+    /**
+     * The old table is kept after growth, and every subsequent operation moves a
+     * bounded number of its buckets into the new table. Until the migration
+     * completes, lookups consult both tables. No single operation pays for
+     * rehashing the whole map, so the worst-case latency stays flat.
+     */
+    INCREMENTAL
+}
@@ -0,0 +1,77 @@
+package com.vodotiiets;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Encoding of keys or values in a snapshot written by
+ * {@link OpenAddressingHashMap#writeSnapshot}.
+ *
+ * <p>Snapshots keep the hashes of keys, so the codec of keys must only be used for
+ * keys whose <tt>hashCode</tt> is the same in every process, as for strings and
+ * boxed primitives.
+ *
+ * @param <T> the type of encoded objects
+ *
+ * Created by Denys Vodotiiets.
+ */
+public interface SnapshotCodec<T> {
+
+    /**
+     * Codec of integers, 4 bytes each.
+     */
+    SnapshotCodec<Integer> INTEGER = new SnapshotCodec<Integer>() {
+        public void write(Integer value, DataOutput out) throws IOException {
+            out.writeInt(value);
+        }
+
+        public Integer read(DataInput in) throws IOException {
+            return in.readInt();
+        }
+    };
+
+    /**
+     * Codec of longs, 8 bytes each.
+     */
+    SnapshotCodec<Long> LONG = new SnapshotCodec<Long>() {
+        public void write(Long value, DataOutput out) throws IOException {
+            out.writeLong(value);
+        }
+
+        public Long read(DataInput in) throws IOException {
+            return in.readLong();
+        }
+    };
+
+    /**
+     * Codec of strings in modified UTF-8, up to 65535 bytes each.
+     */
+    SnapshotCodec<String> STRING = new SnapshotCodec<String>() {
+        public void write(String value, DataOutput out) throws IOException {
+            out.writeUTF(value);
+        }
+
+        public String read(DataInput in) throws IOException {
+            return in.readUTF();
+        }
+    };
+
+    /**
+     * Writes a non-null object.
+     *
+     * @param value the object
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    void write(T value, DataOutput out) throws IOException;
+
+    /**
+     * Reads an object written by {@link #write}.
+     *
+     * @param in the input
+     * @return the object
+     * @throws IOException if reading fails
+     */
+    T read(DataInput in) throws IOException;
+}
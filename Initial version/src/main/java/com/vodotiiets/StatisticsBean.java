@@ -0,0 +1,76 @@
+package com.vodotiiets;
+
+import java.util.function.IntSupplier;
+
+/**
+ * The live <tt>MapStatisticsMXBean</tt> of a map: every attribute is read from
+ * the map when it is requested, so only <tt>MaxClusterLength</tt> scans the table.
+ * The map is read without synchronization, so the attributes of a map which is
+ * being modified are approximate.
+ *
+ * Created by Denys Vodotiiets.
+ */
+final class StatisticsBean implements MapStatisticsMXBean {
+
+    private final IntSupplier size;
+    private final IntSupplier capacity;
+    private final IntSupplier maxClusterLength;
+    private final StatisticsRecorder recorder;
+
+    StatisticsBean(IntSupplier size, IntSupplier capacity, IntSupplier maxClusterLength,
+                   StatisticsRecorder recorder) {
+        this.size = size;
+        this.capacity = capacity;
+        this.maxClusterLength = maxClusterLength;
+        this.recorder = recorder;
+    }
+
+    public boolean isEnabled() {
+        return recorder != null;
+    }
+
+    public int getSize() {
+        return size.getAsInt();
+    }
+
+    public int getCapacity() {
+        return capacity.getAsInt();
+    }
+
+    public double getLoadFactor() {
+        int currentCapacity = capacity.getAsInt();
+        return currentCapacity == 0 ? 0 : (double)size.getAsInt() / currentCapacity;
+    }
+
+    public int getMaxClusterLength() {
+        return maxClusterLength.getAsInt();
+    }
+
+    public long getResizeCount() {
+        return recorder != null ? recorder.resizeCount() : 0;
+    }
+
+    public long getResizeNanos() {
+        return recorder != null ? recorder.resizeNanos() : 0;
+    }
+
+    public long[] getPutHitProbeLengths() {
+        return histogram(StatisticsRecorder.PUT_HIT);
+    }
+
+    public long[] getPutMissProbeLengths() {
+        return histogram(StatisticsRecorder.PUT_MISS);
+    }
+
+    public long[] getGetHitProbeLengths() {
+        return histogram(StatisticsRecorder.GET_HIT);
+    }
+
+    public long[] getGetMissProbeLengths() {
+        return histogram(StatisticsRecorder.GET_MISS);
+    }
+
+    private long[] histogram(int operation) {
+        return recorder != null ? recorder.histogram(operation) : new long[StatisticsRecorder.HISTOGRAM_SIZE];
+    }
+}
@@ -0,0 +1,58 @@
+package com.vodotiiets;
+
+/**
+ * Counters of the statistics mode of a map: histograms of probe lengths and the
+ * number and duration of resizes. The mode is switched on for the whole JVM by the
+ * system property <tt>com.vodotiiets.statistics=true</tt>. The switch is a static
+ * final field, so when it is off the JIT folds every recording call site away and
+ * maps do not even allocate a recorder.
+ *
+ * Created by Denys Vodotiiets.
+ */
+final class StatisticsRecorder {
+
+    /**
+     * Whether maps record statistics.
+     */
+    static final boolean ENABLED = Boolean.getBoolean("com.vodotiiets.statistics");
+
+    /**
+     * The number of buckets of a histogram. The last one counts every
+     * probe at least as long as its index.
+     */
+    static final int HISTOGRAM_SIZE = 32;
+
+    static final int PUT_HIT = 0;
+    static final int PUT_MISS = 1;
+    static final int GET_HIT = 2;
+    static final int GET_MISS = 3;
+
+    private final long[][] histograms = new long[4][HISTOGRAM_SIZE];
+    private long resizeCount;
+    private long resizeNanos;
+
+    /**
+     * Counts an operation whose probe ended the given number of slots
+     * past the home slot of its key.
+     */
+    void recordProbe(int operation, int length) {
+        histograms[operation][Math.min(length, HISTOGRAM_SIZE - 1)]++;
+    }
+
+    void recordResize(long nanos) {
+        resizeCount++;
+        resizeNanos += nanos;
+    }
+
+    long[] histogram(int operation) {
+        return histograms[operation].clone();
+    }
+
+    long resizeCount() {
+        return resizeCount;
+    }
+
+    long resizeNanos() {
+        return resizeNanos;
+    }
+}
@@ -0,0 +1,577 @@
+package com.vodotiiets;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * SwissTable-style implementation of the <tt>HashMap</tt> interface.
+ *
+ * <p>Keys and values are stored in flat arrays, and every slot has a control byte:
+ * either <tt>EMPTY</tt>, <tt>DELETED</tt>, or the lowest 7 bits of the hash of its key
+ * (the tag). The slots are divided into groups of 8, and the control bytes of a group
+ * are packed into a single <tt>long</tt>, so a probe compares the tag against all 8
+ * slots of a group at once with SWAR (SIMD within a register) arithmetic. Keys are
+ * compared with <tt>equals</tt> only on a tag hit, so a probe rarely touches more than
+ * one key, on hits as well as on misses.
+ *
+ * <p>The remaining 25 bits of the hash select the first group; subsequent groups are
+ * visited by triangular (quadratic) probing, which reaches every group of the table.
+ * A lookup stops at the first group which has an <tt>EMPTY</tt> slot. Removed slots
+ * become <tt>DELETED</tt> unless their group still has an <tt>EMPTY</tt> slot; such
+ * tombstones are purged when the table is rebuilt.
+ *
+ * <p>The mappings are walked in the order of the slots by <tt>forEach</tt> and the
+ * <tt>keySet</tt> and <tt>values</tt> views, which fail fast if the map is
+ * structurally modified during the walk.
+ *
+ * @see HashMap
+ * @see OpenAddressingHashMap
+ *
+ * Created by Denys Vodotiiets.
+ */
+public class SwissTableHashMap<K, V> implements HashMap<K, V> {
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum capacity, used if a higher value is implicitly specified
+     * by either of the constructors with arguments.
+     * MUST be a power of two <= 1<<30.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The number of slots in a group.
+     */
+    private static final int GROUP_WIDTH = 8;
+
+    /**
+     * The control byte of a slot which has never been used.
+     */
+    private static final int EMPTY = 0x80;
+
+    /**
+     * The control byte of a slot whose entry was removed.
+     */
+    private static final int DELETED = 0xFE;
+
+    /**
+     * The lowest bit of every byte of a group.
+     */
+    private static final long LSB = 0x0101010101010101L;
+
+    /**
+     * The highest bit of every byte of a group.
+     */
+    private static final long MSB = 0x8080808080808080L;
+
+    /**
+     * The control word of a group whose slots are all empty.
+     */
+    private static final long EMPTY_GROUP = EMPTY * LSB;
+
+    /**
+     * Returns a power of two size for the given target capacity.
+     */
+    private static int tableSizeFor(int capacity) {
+        int size = capacity - 1;
+        size |= size >>> 1;
+        size |= size >>> 2;
+        size |= size >>> 4;
+        size |= size >>> 8;
+        size |= size >>> 16;
+        return (size < GROUP_WIDTH) ? GROUP_WIDTH : (size >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : size + 1;
+    }
+
+    /**
+     * Returns a mask with the highest bit set in every byte of the group
+     * which equals the tag replicated in pattern. May report false positives
+     * in bytes above a true match, which are filtered out by key comparison.
+     */
+    private static long matchTag(long group, long pattern) {
+        long x = group ^ pattern;
+        return (x - LSB) & ~x & MSB;
+    }
+
+    /**
+     * Returns a mask with the highest bit set in every <tt>EMPTY</tt> byte of the group.
+     */
+    private static long matchEmpty(long group) {
+        return group & (~group << 6) & MSB;
+    }
+
+    /**
+     * Returns a mask with the highest bit set in every <tt>EMPTY</tt>
+     * or <tt>DELETED</tt> byte of the group.
+     */
+    private static long matchEmptyOrDeleted(long group) {
+        return group & (~group << 7) & MSB;
+    }
+
+    /**
+     * The control bytes, eight per group.
+     */
+    private long[] control;
+
+    /**
+     * The keys of the table, parallel to control bytes.
+     */
+    private Object[] keys;
+
+    /**
+     * The values of the table, parallel to control bytes.
+     */
+    private Object[] values;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    private int size;
+
+    /**
+     * The number of times this map has been structurally modified, used
+     * to make iteration fail fast.
+     */
+    private int modCount;
+
+    /**
+     * The number of <tt>DELETED</tt> slots.
+     */
+    private int deleted;
+
+    /**
+     * The number of used and deleted slots at which the table is rebuilt
+     * (7/8 of capacity).
+     */
+    private int threshold;
+
+    /**
+     * The mixer applied to key hash codes.
+     */
+    private final HashMixer mixer;
+
+    /**
+     * The seed of the mixer.
+     */
+    private final int seed;
+
+    /**
+     * Constructs an empty <tt>SwissTableHashMap</tt> able to hold the specified
+     * number of mappings without growing, with the specified hash mixer.
+     *
+     * <p>Tags and groups are taken from different bits of the hash, so the mixer
+     * should disperse all of them, as {@link HashMixer#MURMUR3} does.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  mixer           the mixer applied to key hash codes
+     * @param  seed            the seed of the mixer, e.g. {@link HashMixer#randomSeed()}
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the mixer is null
+     */
+    public SwissTableHashMap(int initialCapacity, HashMixer mixer, int seed) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+
+        if (mixer == null) {
+            throw new IllegalArgumentException("Illegal hash mixer: " + mixer);
+        }
+
+        this.mixer = mixer;
+        this.seed = seed;
+
+        long capacity = (long)initialCapacity * GROUP_WIDTH / (GROUP_WIDTH - 1) + 1;
+        allocate(capacity >= MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY : tableSizeFor((int)capacity));
+    }
+
+    /**
+     * Constructs an empty <tt>SwissTableHashMap</tt> able to hold the specified
+     * number of mappings without growing.
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public SwissTableHashMap(int initialCapacity) {
+        this(initialCapacity, HashMixer.MURMUR3, 0);
+    }
+
+    /**
+     * Constructs an empty <tt>SwissTableHashMap</tt> with the default initial
+     * capacity (16).
+     */
+    public SwissTableHashMap() {
+        this.mixer = HashMixer.MURMUR3;
+        this.seed = 0;
+        allocate(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for
+     * the key, the old value is replaced by the specified value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    public boolean put(K key, V value) {
+        return putValue(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value (or is mapped
+     * to {@code null}) associates it with the given value and returns
+     * <tt>true</tt>.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    public boolean putOnlyIfAbsent(K key, V value) {
+        return putValue(key, value, true);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code null} if this map contains no mapping for the key
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Illegal key: " + key);
+        }
+
+        int index;
+        return (index = findIndex(hash(key), key)) < 0 ? null : (V)values[index];
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return <tt>true</tt> if the removal occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    public boolean remove(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Illegal key: " + key);
+        }
+
+        int index;
+        if ((index = findIndex(hash(key), key)) < 0) {
+            return false;
+        }
+
+        if (matchEmpty(control[index >>> 3]) != 0) {
+            setControl(index, EMPTY);
+        } else {
+            setControl(index, DELETED);
+            deleted++;
+        }
+        keys[index] = null;
+        values[index] = null;
+        modCount++;
+        size--;
+        return true;
+    }
+
+    /**
+     * Performs the given action for each mapping of this map, in the order of
+     * the slots.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws IllegalArgumentException if the action is null
+     * @throws ConcurrentModificationException if the action structurally modifies the map
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Illegal action: " + action);
+        }
+
+        Object[] tab = keys;
+        Object[] vals = values;
+        Object currentKey;
+        int expectedModCount = modCount;
+
+        for (int j = 0; j < tab.length; ++j) {
+            if ((currentKey = tab[j]) != null) {
+                action.accept((K)currentKey, (V)vals[j]);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a read-only {@link Set} view of the keys contained in this map,
+     * iterated in the order of the slots. The set is backed by the map, so changes
+     * to the map are reflected in the set. Its iterators fail fast if the map is
+     * structurally modified.
+     *
+     * @return a set view of the keys contained in this map
+     */
+    public Set<K> keySet() {
+        return new KeySet();
+    }
+
+    /**
+     * Returns a read-only {@link Collection} view of the values contained in this
+     * map, iterated in the order of the slots. The collection is backed by the map,
+     * so changes to the map are reflected in the collection. Its iterators fail fast
+     * if the map is structurally modified.
+     *
+     * @return a collection view of the values contained in this map
+     */
+    public Collection<V> values() {
+        return new Values();
+    }
+
+    private final class KeySet extends AbstractSet<K> {
+        public int size() {
+            return size;
+        }
+
+        public boolean contains(Object o) {
+            return o != null && findIndex(hash(o), o) >= 0;
+        }
+
+        public Iterator<K> iterator() {
+            return new KeyIterator();
+        }
+    }
+
+    private final class Values extends AbstractCollection<V> {
+        public int size() {
+            return size;
+        }
+
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+    }
+
+    /**
+     * Iterator over the used slots of the table.
+     */
+    private abstract class SlotIterator {
+        private final Object[] tab = keys;
+        private final int expectedModCount = modCount;
+        private int next = -1;
+
+        SlotIterator() {
+            advance();
+        }
+
+        public final boolean hasNext() {
+            return next < tab.length;
+        }
+
+        final int nextIndex() {
+            int index = next;
+
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            if (index >= tab.length) {
+                throw new NoSuchElementException();
+            }
+            advance();
+            return index;
+        }
+
+        private void advance() {
+            do {
+                next++;
+            } while (next < tab.length && tab[next] == null);
+        }
+    }
+
+    private final class KeyIterator extends SlotIterator implements Iterator<K> {
+        @SuppressWarnings("unchecked")
+        public K next() {
+            return (K)keys[nextIndex()];
+        }
+    }
+
+    private final class ValueIterator extends SlotIterator implements Iterator<V> {
+        @SuppressWarnings("unchecked")
+        public V next() {
+            return (V)values[nextIndex()];
+        }
+    }
+
+    /**
+     * Implements SwissTableHashMap.put and SwissTableHashMap.putOnlyIfAbsent
+     *
+     * @param key the key
+     * @param value the value to put
+     * @param onlyIfAbsent if true, don't change existing value
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalArgumentException if the specified key is null
+     */
+    private boolean putValue(K key, V value, boolean onlyIfAbsent) {
+        if (key == null) {
+            throw new IllegalArgumentException("Illegal key: " + key);
+        }
+
+        int hash = hash(key);
+        int index;
+
+        if ((index = findIndex(hash, key)) >= 0) {
+            if (values[index] == null || !onlyIfAbsent) {
+                values[index] = value;
+                return true;
+            }
+            return false;
+        }
+
+        if (size + deleted >= threshold) {
+            if (size >= threshold >> 1 && keys.length < MAXIMUM_CAPACITY) {
+                rehash(keys.length << 1);
+            } else if (deleted > 0) {
+                rehash(keys.length);
+            } else {
+                throw new IllegalStateException("There is no place for new data");
+            }
+        }
+
+        index = findInsertIndex(hash);
+        if (((int)(control[index >>> 3] >>> ((index & 7) << 3)) & 0xFF) == DELETED) {
+            deleted--;
+        }
+        setControl(index, hash & 0x7F);
+        keys[index] = key;
+        values[index] = value;
+        modCount++;
+        size++;
+        return true;
+    }
+
+    /**
+     * Finds the slot holding the key.
+     *
+     * @param hash hash for key
+     * @param key the key
+     * @return index of the slot, or -1 if none
+     */
+    private int findIndex(int hash, Object key) {
+        long[] ctrl = control;
+        Object[] tab = keys;
+        int groupMask = ctrl.length - 1;
+        int group = groupMask & (hash >>> 7);
+        long pattern = LSB * (hash & 0x7F);
+        long word, matches;
+        Object currentKey;
+        int index;
+
+        for (int step = 1; ; step++) {
+            matches = matchTag(word = ctrl[group], pattern);
+            while (matches != 0) {
+                index = (group << 3) + (Long.numberOfTrailingZeros(matches) >>> 3);
+                if ((currentKey = tab[index]) == key || (currentKey != null && key.equals(currentKey))) {
+                    return index;
+                }
+                matches &= matches - 1;
+            }
+
+            if (matchEmpty(word) != 0) {
+                return -1;
+            }
+            group = groupMask & (group + step);
+        }
+    }
+
+    /**
+     * Finds the first <tt>EMPTY</tt> or <tt>DELETED</tt> slot of the probe
+     * sequence of the hash.
+     */
+    private int findInsertIndex(int hash) {
+        long[] ctrl = control;
+        int groupMask = ctrl.length - 1;
+        int group = groupMask & (hash >>> 7);
+        long matches;
+
+        for (int step = 1; (matches = matchEmptyOrDeleted(ctrl[group])) == 0; step++) {
+            group = groupMask & (group + step);
+        }
+        return (group << 3) + (Long.numberOfTrailingZeros(matches) >>> 3);
+    }
+
+    /**
+     * Sets the control byte of the slot.
+     */
+    private void setControl(int index, int value) {
+        int shift = (index & 7) << 3;
+        control[index >>> 3] = (control[index >>> 3] & ~(0xFFL << shift)) | ((long)value << shift);
+    }
+
+    /**
+     * Computes key.hashCode() and scrambles it with the mixer of this map.
+     */
+    private int hash(Object key) {
+        return mixer.mix(key.hashCode(), seed);
+    }
+
+    /**
+     * Allocates an empty table of the given power of two capacity.
+     */
+    private void allocate(int capacity) {
+        control = new long[capacity / GROUP_WIDTH];
+        Arrays.fill(control, EMPTY_GROUP);
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        threshold = capacity - capacity / GROUP_WIDTH;
+        deleted = 0;
+    }
+
+    /**
+     * Rebuilds the table with the given capacity, dropping all tombstones.
+     */
+    private void rehash(int newCapacity) {
+        long[] oldControl = control;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        allocate(newCapacity);
+        modCount++;
+
+        for (int j = 0; j < oldKeys.length; ++j) {
+            if (((oldControl[j >>> 3] >>> ((j & 7) << 3)) & 0x80) == 0) {
+                int hash = hash(oldKeys[j]);
+                int index = findInsertIndex(hash);
+                setControl(index, hash & 0x7F);
+                keys[index] = oldKeys[j];
+                values[index] = oldValues[j];
+            }
+        }
+    }
+}
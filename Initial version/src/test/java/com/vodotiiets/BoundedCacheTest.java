@@ -0,0 +1,190 @@
+package com.vodotiiets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by Denys Vodotiiets.
+ */
+public class BoundedCacheTest {
+
+    private BoundedCache<Integer, Long> cache;
+    private long time;
+    private final int SIZE = 100;
+
+    private BoundedCache<Integer, Long> newCache(int maximumSize, long timeToLive, TimeUnit unit) {
+        return new BoundedCache<>(maximumSize, timeToLive, unit, () -> time, HashMixer.SPREAD, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfMaximumSizeIsNotPositive() {
+        cache = new BoundedCache<>(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfMaximumSizeExceedsMaximumCapacity() {
+        cache = new BoundedCache<>((1 << 29) - (1 << 27) + 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfTimeToLiveIsNotPositive() {
+        cache = new BoundedCache<>(SIZE);
+        cache.put(1, 2L, 0, TimeUnit.SECONDS);
+    }
+
+    @Test()
+    public void sizeShouldNotExceedMaximumSize() {
+        cache = new BoundedCache<>(SIZE);
+
+        for (int i = 0; i < SIZE * 10; i++) {
+            Assert.assertTrue(cache.put(i, (long)i));
+        }
+
+        Assert.assertTrue(cache.size() == SIZE);
+        Assert.assertEquals(SIZE * 9, cache.evictionCount());
+        Assert.assertEquals(Long.valueOf(SIZE * 10 - 1), cache.get(SIZE * 10 - 1));
+    }
+
+    @Test()
+    public void referencedEntriesShouldSurviveEviction() {
+        cache = new BoundedCache<>(SIZE);
+
+        for (int i = 0; i < SIZE; i++) {
+            cache.put(i, (long)i);
+        }
+        for (int i = 0; i < SIZE; i += 2) {
+            Assert.assertEquals(Long.valueOf(i), cache.get(i));
+        }
+        for (int i = SIZE; i < SIZE + SIZE / 2; i++) {
+            cache.put(i, (long)i);
+        }
+
+        Assert.assertTrue(cache.size() == SIZE);
+        for (int i = 0; i < SIZE; i += 2) {
+            Assert.assertTrue(cache.keySet().contains(i));
+        }
+    }
+
+    @Test()
+    public void countersShouldCountHitsAndMisses() {
+        cache = new BoundedCache<>(SIZE);
+        cache.put(1, 2L);
+
+        Assert.assertEquals(Long.valueOf(2L), cache.get(1));
+        Assert.assertNull(cache.get(2));
+        Assert.assertNull(cache.get(3));
+        Assert.assertTrue(cache.hitCount() == 1 && cache.missCount() == 2 && cache.evictionCount() == 0);
+    }
+
+    @Test()
+    public void expiredEntryShouldBeDroppedOnLookup() {
+        cache = newCache(SIZE, 10, TimeUnit.SECONDS);
+        cache.put(1, 2L);
+        cache.put(2, 3L, 1, TimeUnit.HOURS);
+
+        time += TimeUnit.SECONDS.toNanos(10);
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(Long.valueOf(3L), cache.get(2));
+        Assert.assertTrue(cache.size() == 1 && cache.expirationCount() == 1);
+        Assert.assertFalse(cache.remove(1));
+    }
+
+    @Test()
+    public void timerWheelShouldSweepExpiredEntries() {
+        cache = newCache(SIZE * 2, 0, TimeUnit.SECONDS);
+
+        for (int i = 0; i < SIZE; i++) {
+            cache.put(i, (long)i, i + 1, TimeUnit.MINUTES);
+        }
+        cache.put(-1, -1L, 49, TimeUnit.HOURS);
+        cache.put(-2, -2L);
+
+        time += TimeUnit.SECONDS.toNanos(50 * 60 + 30);
+        cache.cleanUp();
+        Assert.assertTrue(cache.size() == SIZE - 50 + 2);
+        Assert.assertEquals(50, cache.expirationCount());
+
+        time += TimeUnit.DAYS.toNanos(3);
+        cache.cleanUp();
+        Assert.assertTrue(cache.size() == 1);
+        Assert.assertEquals(Long.valueOf(-2L), cache.get(-2));
+    }
+
+    @Test()
+    public void cacheShouldMatchReferenceUnderChurn() {
+        Random random = new Random(42);
+        java.util.HashMap<Integer, long[]> reference = new java.util.HashMap<>();
+        cache = newCache(SIZE * 10, 0, TimeUnit.SECONDS);
+
+        for (int i = 0; i < SIZE * 1000; i++) {
+            int key = random.nextInt(SIZE * 4) << 4;
+            time += TimeUnit.MILLISECONDS.toNanos(random.nextInt(100));
+
+            if (random.nextInt(3) > 0) {
+                long timeToLive = TimeUnit.SECONDS.toNanos(1 + random.nextInt(SIZE));
+                cache.put(key, (long)i, timeToLive, TimeUnit.NANOSECONDS);
+                reference.put(key, new long[] {i, time + timeToLive});
+            } else {
+                long[] entry = reference.remove(key);
+                Assert.assertEquals(entry != null && entry[1] > time, cache.remove(key));
+            }
+        }
+
+        for (int key = 0; key < SIZE * 4 << 4; key += 1 << 4) {
+            long[] entry = reference.get(key);
+            Assert.assertEquals(entry != null && entry[1] > time ? Long.valueOf(entry[0]) : null, cache.get(key));
+        }
+
+        time += TimeUnit.SECONDS.toNanos(SIZE * 2);
+        cache.cleanUp();
+        Assert.assertTrue(cache.size() == 0);
+    }
+
+    @Test()
+    public void evictionShouldKeepTimerWheelConsistent() {
+        Random random = new Random(42);
+        cache = newCache(SIZE, 0, TimeUnit.SECONDS);
+
+        for (int i = 0; i < SIZE * 1000; i++) {
+            time += TimeUnit.MILLISECONDS.toNanos(random.nextInt(100));
+            cache.put(random.nextInt(SIZE * 4), (long)i, 1 + random.nextInt(SIZE), TimeUnit.SECONDS);
+            Assert.assertTrue(cache.size() <= SIZE);
+        }
+        Assert.assertTrue(cache.evictionCount() > 0 && cache.expirationCount() > 0);
+
+        time += TimeUnit.SECONDS.toNanos(SIZE * 2);
+        cache.cleanUp();
+        Assert.assertTrue(cache.size() == 0);
+    }
+
+    @Test()
+    public void forEachAndViewsShouldSkipExpiredEntries() {
+        java.util.HashMap<Integer, Long> visited = new java.util.HashMap<>();
+        cache = newCache(SIZE, 0, TimeUnit.SECONDS);
+        cache.put(1, 2L, 1, TimeUnit.SECONDS);
+        cache.put(3, 4L);
+
+        time += TimeUnit.SECONDS.toNanos(1);
+        cache.forEach(visited::put);
+        Assert.assertEquals(java.util.Collections.singletonMap(3, 4L), visited);
+        Assert.assertEquals(java.util.Collections.singleton(3), new java.util.HashSet<>(cache.keySet()));
+        Assert.assertFalse(cache.keySet().contains(1));
+        Assert.assertEquals(0, cache.hitCount());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void throwsConcurrentModificationExceptionIfCacheIsModifiedDuringIteration() {
+        cache = new BoundedCache<>(SIZE);
+        cache.put(1, 2L);
+        cache.put(2, 3L);
+
+        for (Integer key : cache.keySet()) {
+            cache.remove(key);
+        }
+    }
+
+}
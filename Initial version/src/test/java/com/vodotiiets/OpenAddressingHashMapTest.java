@@ -1,8 +1,19 @@
 package com.vodotiiets;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Random;
+import java.util.stream.LongStream;
+
 /**
  * Created by Denys Vodotiiets.
  */
@@ -96,4 +107,379 @@ public class OpenAddressingHashMapTest {
         map.get(null);
     }
 
-}
\ No newline at end of file
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfMixerIsNull() {
+        map = new OpenAddressingHashMap<>(16, 0.75f, null, 0);
+    }
+
+    @Test()
+    public void allValuesShouldBeReceivedWithEveryMixer() {
+        for (HashMixer mixer : HashMixer.values()) {
+            map = new OpenAddressingHashMap<>(SIZE * 16, 0.75f, mixer, HashMixer.randomSeed());
+
+            for (int i = 0; i < SIZE; i++) {
+                map.put(i << 16, (long)i);
+            }
+
+            for (int i = 0; i < SIZE; i++) {
+                Assert.assertEquals(Long.valueOf(i), map.get(i << 16));
+            }
+        }
+    }
+
+    @Test()
+    public void removedNodeShouldNotBeReceived() {
+        map = new OpenAddressingHashMap<>();
+        map.put(1, 2L);
+        Assert.assertTrue(map.remove(1) && map.size() == 0);
+        Assert.assertNull(map.get(1));
+        Assert.assertFalse(map.remove(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfRemoveKeyIsNull() {
+        map = new OpenAddressingHashMap<>();
+        map.remove(null);
+    }
+
+    @Test()
+    public void mapShouldMatchReferenceUnderChurn() {
+        Random random = new Random(42);
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+        map = new OpenAddressingHashMap<>(SIZE * 4, 0.75f, HashMixer.MURMUR3, 0);
+
+        for (int i = 0; i < SIZE * 1000; i++) {
+            Integer key = random.nextInt(SIZE * 2);
+            if (random.nextBoolean()) {
+                map.put(key, (long)i);
+                reference.put(key, (long)i);
+            } else {
+                Assert.assertEquals(reference.remove(key) != null, map.remove(key));
+            }
+        }
+
+        Assert.assertEquals(reference.size(), map.size());
+        for (java.util.Map.Entry<Integer, Long> entry : reference.entrySet()) {
+            Assert.assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfProbingPolicyIsNull() {
+        map = new OpenAddressingHashMap<>(16, 0.75f, HashMixer.SPREAD, 0, null);
+    }
+
+    @Test()
+    public void robinHoodMapShouldMatchReferenceUnderChurn() {
+        Random random = new Random(42);
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+        map = new OpenAddressingHashMap<>(SIZE * 4, 0.9f, HashMixer.MURMUR3, 0, ProbingPolicy.ROBIN_HOOD);
+
+        for (int i = 0; i < SIZE * 1000; i++) {
+            Integer key = random.nextInt(SIZE * 4);
+            if (random.nextBoolean()) {
+                Assert.assertTrue(map.put(key, (long)i));
+                reference.put(key, (long)i);
+            } else {
+                Assert.assertEquals(reference.remove(key) != null, map.remove(key));
+            }
+        }
+
+        Assert.assertEquals(reference.size(), map.size());
+        for (int key = 0; key < SIZE * 4; key++) {
+            Assert.assertEquals(reference.get(key), map.get(key));
+        }
+    }
+
+    @Test()
+    public void robinHoodNodeShouldNotBeAddedIfPresent() {
+        map = new OpenAddressingHashMap<>(SIZE, 0.9f, HashMixer.SPREAD, 0, ProbingPolicy.ROBIN_HOOD);
+
+        for (int i = 0; i < SIZE / 2; i++) {
+            map.put(i * SIZE * 2, (long)i);
+        }
+
+        for (int i = 0; i < SIZE / 2; i++) {
+            Assert.assertFalse(map.putOnlyIfAbsent(i * SIZE * 2, -1L));
+            Assert.assertEquals(Long.valueOf(i), map.get(i * SIZE * 2));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfResizePolicyIsNull() {
+        map = new OpenAddressingHashMap<>(16, 0.75f, HashMixer.SPREAD, 0, ProbingPolicy.LINEAR, null);
+    }
+
+    @Test()
+    public void incrementallyResizedMapShouldMatchReferenceWhileGrowing() {
+        Random random = new Random(42);
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+
+        for (ProbingPolicy probingPolicy : ProbingPolicy.values()) {
+            map = new OpenAddressingHashMap<>(1, 0.75f, HashMixer.MURMUR3, 0,
+                    probingPolicy, ResizePolicy.INCREMENTAL);
+            reference.clear();
+
+            for (int i = 0; i < SIZE * 1000; i++) {
+                Integer key = random.nextInt(SIZE * 100);
+                if (random.nextInt(4) > 0) {
+                    Assert.assertTrue(map.put(key, (long)i));
+                    reference.put(key, (long)i);
+                } else if (random.nextBoolean()) {
+                    Assert.assertEquals(reference.get(key), map.get(key));
+                } else {
+                    Assert.assertEquals(reference.remove(key) != null, map.remove(key));
+                }
+            }
+
+            Assert.assertEquals(reference.size(), map.size());
+            for (int key = 0; key < SIZE * 100; key++) {
+                Assert.assertEquals(reference.get(key), map.get(key));
+            }
+        }
+    }
+
+    @Test()
+    public void incrementallyResizedNodeShouldNotBeAddedIfPresent() {
+        map = new OpenAddressingHashMap<>(1, 0.75f, HashMixer.SPREAD, 0,
+                ProbingPolicy.LINEAR, ResizePolicy.INCREMENTAL);
+
+        for (int i = 0; i < SIZE; i++) {
+            map.put(i, (long)i);
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            Assert.assertFalse(map.putOnlyIfAbsent(i, -1L));
+        }
+        Assert.assertTrue(map.size() == SIZE);
+    }
+
+    @Test()
+    public void putAllAndGetAllShouldMatchSingleOperations() {
+        for (ProbingPolicy probingPolicy : ProbingPolicy.values()) {
+            map = new OpenAddressingHashMap<>(SIZE * 4, 0.75f, HashMixer.SPREAD, 0, probingPolicy);
+            Integer[] keys = new Integer[SIZE * 2];
+            Long[] values = new Long[SIZE * 2];
+            long[] missing = new long[4];
+
+            for (int i = 0; i < SIZE; i++) {
+                keys[i] = i * 31;
+                values[i] = (long)i;
+            }
+            Assert.assertEquals(SIZE, map.putAll(Arrays.copyOf(keys, SIZE), values));
+            Assert.assertTrue(map.size() == SIZE);
+
+            Long[] replaced = new Long[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                replaced[i] = -values[i];
+            }
+            Assert.assertEquals(SIZE, map.putAll(Arrays.copyOf(keys, SIZE), replaced));
+            Assert.assertTrue(map.size() == SIZE);
+            Assert.assertEquals(Long.valueOf(-(SIZE - 1)), map.get(keys[SIZE - 1]));
+
+            for (int i = SIZE; i < keys.length; i++) {
+                keys[i] = -i;
+            }
+            Assert.assertEquals(SIZE, map.getAll(keys, values, missing));
+            for (int i = 0; i < keys.length; i++) {
+                Assert.assertEquals(map.get(keys[i]), values[i]);
+                Assert.assertEquals(i >= SIZE, (missing[i / 64] & 1L << i) != 0);
+            }
+        }
+    }
+
+    @Test()
+    public void snapshotShouldRestoreAllValues() throws IOException {
+        for (ProbingPolicy probingPolicy : ProbingPolicy.values()) {
+            map = new OpenAddressingHashMap<>(SIZE * 2, 0.75f, HashMixer.MURMUR3, HashMixer.randomSeed(),
+                    probingPolicy);
+
+            for (int i = 0; i < SIZE; i++) {
+                map.put(i * 31, i % 10 == 0 ? null : (long)i);
+            }
+
+            OpenAddressingHashMap<Integer, Long> restored = OpenAddressingHashMap.readSnapshot(
+                    Channels.newChannel(new ByteArrayInputStream(snapshot(map))),
+                    SnapshotCodec.INTEGER, SnapshotCodec.LONG);
+
+            Assert.assertTrue(restored.size() == SIZE);
+            for (int i = 0; i < SIZE; i++) {
+                Assert.assertEquals(map.get(i * 31), restored.get(i * 31));
+            }
+            Assert.assertArrayEquals(snapshot(map), snapshot(restored));
+
+            restored.remove(0);
+            restored.put(SIZE * 31, -1L);
+            Assert.assertEquals(Long.valueOf(-1), restored.get(SIZE * 31));
+        }
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void throwsStreamCorruptedExceptionIfSnapshotIsIllegal() throws IOException {
+        map = new OpenAddressingHashMap<>();
+        map.put(1, 2L);
+        byte[] snapshot = snapshot(map);
+        snapshot[0]++;
+        OpenAddressingHashMap.readSnapshot(Channels.newChannel(new ByteArrayInputStream(snapshot)),
+                SnapshotCodec.INTEGER, SnapshotCodec.LONG);
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void throwsStreamCorruptedExceptionIfSnapshotThresholdExceedsTable() throws IOException {
+        map = new OpenAddressingHashMap<>();
+        map.put(1, 2L);
+        byte[] snapshot = snapshot(map);
+        snapshot[26] = 0x7F; // the high byte of the threshold
+        OpenAddressingHashMap.readSnapshot(Channels.newChannel(new ByteArrayInputStream(snapshot)),
+                SnapshotCodec.INTEGER, SnapshotCodec.LONG);
+    }
+
+    private static byte[] snapshot(OpenAddressingHashMap<Integer, Long> map) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        map.writeSnapshot(Channels.newChannel(out), SnapshotCodec.INTEGER, SnapshotCodec.LONG);
+        return out.toByteArray();
+    }
+
+
+    @Test()
+    public void forEachAndViewsShouldVisitEveryMapping() {
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+        java.util.HashMap<Integer, Long> visited = new java.util.HashMap<>();
+        map = new OpenAddressingHashMap<>(SIZE, 0.75f, HashMixer.MURMUR3, 0,
+                ProbingPolicy.ROBIN_HOOD, ResizePolicy.INCREMENTAL);
+
+        for (int i = 0; i < SIZE * 10; i++) {
+            map.put(i, (long)i);
+            reference.put(i, (long)i);
+        }
+
+        map.forEach((key, value) -> Assert.assertNull(visited.put(key, value)));
+        Assert.assertEquals(reference, visited);
+        Assert.assertEquals(reference.keySet(), map.keySet());
+        Assert.assertEquals(new java.util.HashSet<>(reference.values()), new java.util.HashSet<>(map.values()));
+        Assert.assertTrue(map.values().size() == SIZE * 10);
+        Assert.assertTrue(map.keySet().contains(SIZE) && !map.keySet().contains(-1));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void throwsConcurrentModificationExceptionIfMapIsModifiedDuringIteration() {
+        map = new OpenAddressingHashMap<>(SIZE, 0.75f, HashMixer.MURMUR3, 0,
+                ProbingPolicy.ROBIN_HOOD, ResizePolicy.INCREMENTAL);
+        map.put(1, 2L);
+        map.put(2, 3L);
+
+        for (Integer key : map.keySet()) {
+            map.remove(key);
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void throwsUnsupportedOperationExceptionIfViewIsModified() {
+        map = new OpenAddressingHashMap<>(SIZE, 0.75f, HashMixer.MURMUR3, 0,
+                ProbingPolicy.ROBIN_HOOD, ResizePolicy.INCREMENTAL);
+        map.put(1, 2L);
+        map.keySet().remove(1);
+    }
+
+
+    @Test()
+    public void parallelEntryStreamShouldScanEveryMapping() {
+        map = new OpenAddressingHashMap<>(SIZE, 0.75f, HashMixer.MURMUR3, 0,
+                ProbingPolicy.LINEAR, ResizePolicy.INCREMENTAL);
+
+        for (int i = 0; i < SIZE * 100; i++) {
+            map.put(i, i * 2L);
+        }
+
+        Assert.assertEquals(SIZE * 100, map.entryStream(true).count());
+        Assert.assertEquals((long)(SIZE * 100 - 1) * SIZE * 100,
+                map.entryStream(true).mapToLong(entry -> entry.getValue()).sum());
+        Assert.assertEquals(SIZE, map.entryStream(true)
+                .filter(entry -> entry.getKey() >= SIZE && entry.getKey() < SIZE * 2).count());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void throwsConcurrentModificationExceptionIfMapIsModifiedDuringStream() {
+        map = new OpenAddressingHashMap<>(SIZE);
+        map.put(1, 2L);
+        map.put(2, 3L);
+
+        map.entryStream(false).forEach(entry -> map.remove(entry.getKey()));
+    }
+
+
+    @Test()
+    public void statisticsShouldDescribeOccupancy() {
+        map = new OpenAddressingHashMap<>();
+        Assert.assertTrue(map.statistics().getCapacity() == 0 && map.statistics().getMaxClusterLength() == 0);
+
+        for (int i = 0; i < SIZE; i++) {
+            map.put(i, (long)i);
+        }
+
+        MapStatistics statistics = map.statistics();
+        Assert.assertTrue(statistics.getSize() == SIZE);
+        Assert.assertEquals((double)SIZE / statistics.getCapacity(), statistics.getLoadFactor(), 0);
+        Assert.assertTrue(statistics.getMaxClusterLength() > 0 && statistics.getMaxClusterLength() <= SIZE);
+        Assert.assertTrue(map.statisticsMXBean().getSize() == SIZE);
+    }
+
+    @Test()
+    public void probeLengthsShouldBeRecordedInStatisticsMode() {
+        for (ProbingPolicy policy : ProbingPolicy.values()) {
+            map = new OpenAddressingHashMap<>(1, 0.75f, HashMixer.SPREAD, 0, policy);
+            Assume.assumeTrue(map.statistics().isEnabled());
+
+            for (int i = 0; i < SIZE; i++) {
+                map.put(i, (long)i);
+            }
+            for (int i = 0; i < SIZE * 2; i++) {
+                map.get(i);
+            }
+
+            MapStatistics statistics = map.statistics();
+            Assert.assertEquals(SIZE, LongStream.of(statistics.getPutMissProbeLengths()).sum());
+            Assert.assertEquals(SIZE, LongStream.of(statistics.getGetHitProbeLengths()).sum());
+            Assert.assertEquals(SIZE, LongStream.of(statistics.getGetMissProbeLengths()).sum());
+            Assert.assertTrue(statistics.getResizeCount() > 0);
+        }
+    }
+
+
+    @Test()
+    public void collidingKeysShouldSurviveResize() {
+        for (ProbingPolicy policy : ProbingPolicy.values()) {
+            map = new OpenAddressingHashMap<>(16, 0.75f, HashMixer.SPREAD, 0, policy);
+
+            for (int i = 0; i < SIZE; i++) {
+                map.put(i << 10, (long)i);
+            }
+
+            Assert.assertTrue(map.size() == SIZE);
+            for (int i = 0; i < SIZE; i++) {
+                Assert.assertEquals(Long.valueOf(i), map.get(i << 10));
+            }
+        }
+    }
+
+    @Test()
+    public void largeTableShouldBeRehashedWithoutLosingNodes() {
+        for (ProbingPolicy policy : ProbingPolicy.values()) {
+            Random random = new Random(42);
+            java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+            map = new OpenAddressingHashMap<>(16, 0.9f, HashMixer.SPREAD, 0, policy);
+
+            for (int i = 0; i < SIZE * 2000; i++) {
+                int key = random.nextInt() >>> 8;
+                map.put(key, (long)i);
+                reference.put(key, (long)i);
+            }
+
+            Assert.assertEquals(reference.size(), map.size());
+            for (java.util.Map.Entry<Integer, Long> entry : reference.entrySet()) {
+                Assert.assertEquals(entry.getValue(), map.get(entry.getKey()));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.vodotiiets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Random;
+
+/**
+ * Created by Denys Vodotiiets.
+ */
+public class SwissTableHashMapTest {
+
+    private SwissTableHashMap<Integer, Long> map;
+    private final int SIZE = 100;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfCapacityIsNegative() {
+        map = new SwissTableHashMap<>(-1);
+    }
+
+    @Test()
+    public void sizeShouldBeZero() {
+        map = new SwissTableHashMap<>();
+        Assert.assertTrue(map.size() == 0);
+    }
+
+    @Test()
+    public void secondNodeShouldNotBeAdded() {
+        map = new SwissTableHashMap<>();
+        map.put(1, 2L);
+        Assert.assertFalse(map.putOnlyIfAbsent(1, 3L));
+        Assert.assertEquals(Long.valueOf(2L), map.get(1));
+    }
+
+    @Test()
+    public void secondNodeShouldBeAddedButSizeStillOne() {
+        map = new SwissTableHashMap<>();
+        map.put(1, 2L);
+        Assert.assertTrue(map.put(1, 3L) && map.size() == 1);
+        Assert.assertEquals(Long.valueOf(3L), map.get(1));
+    }
+
+    @Test()
+    public void allNodesShouldBeReceived() {
+        map = new SwissTableHashMap<>();
+
+        for (int i = 0; i < SIZE * 100; i++) {
+            Assert.assertTrue(map.put(i, (long)i) && map.size() == i + 1);
+        }
+
+        for (int i = 0; i < SIZE * 100; i++) {
+            Assert.assertEquals(Long.valueOf(i), map.get(i));
+        }
+        Assert.assertNull(map.get(-1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfKeyIsNull() {
+        map = new SwissTableHashMap<>();
+        map.put(null, 1L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfGetKeyIsNull() {
+        map = new SwissTableHashMap<>();
+        map.get(null);
+    }
+
+    @Test()
+    public void mapShouldMatchReferenceUnderChurn() {
+        Random random = new Random(42);
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+
+        for (HashMixer mixer : HashMixer.values()) {
+            map = new SwissTableHashMap<>(SIZE, mixer, HashMixer.randomSeed());
+            reference.clear();
+
+            for (int i = 0; i < SIZE * 1000; i++) {
+                Integer key = random.nextInt(SIZE * 4);
+                if (random.nextInt(3) > 0) {
+                    Assert.assertTrue(map.put(key, (long)i));
+                    reference.put(key, (long)i);
+                } else {
+                    Assert.assertEquals(reference.remove(key) != null, map.remove(key));
+                }
+            }
+
+            Assert.assertEquals(reference.size(), map.size());
+            for (int key = 0; key < SIZE * 4; key++) {
+                Assert.assertEquals(reference.get(key), map.get(key));
+            }
+        }
+    }
+
+
+    @Test()
+    public void forEachAndViewsShouldVisitEveryMapping() {
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+        java.util.HashMap<Integer, Long> visited = new java.util.HashMap<>();
+        map = new SwissTableHashMap<>();
+
+        for (int i = 0; i < SIZE * 10; i++) {
+            map.put(i, (long)i);
+            reference.put(i, (long)i);
+        }
+
+        map.forEach((key, value) -> Assert.assertNull(visited.put(key, value)));
+        Assert.assertEquals(reference, visited);
+        Assert.assertEquals(reference.keySet(), map.keySet());
+        Assert.assertEquals(new java.util.HashSet<>(reference.values()), new java.util.HashSet<>(map.values()));
+        Assert.assertTrue(map.values().size() == SIZE * 10);
+        Assert.assertTrue(map.keySet().contains(SIZE) && !map.keySet().contains(-1));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void throwsConcurrentModificationExceptionIfMapIsModifiedDuringIteration() {
+        map = new SwissTableHashMap<>();
+        map.put(1, 2L);
+        map.put(2, 3L);
+
+        for (Integer key : map.keySet()) {
+            map.remove(key);
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void throwsUnsupportedOperationExceptionIfViewIsModified() {
+        map = new SwissTableHashMap<>();
+        map.put(1, 2L);
+        map.keySet().remove(1);
+    }
+
+}
@@ -0,0 +1,293 @@
+package com.vodotiiets;
+
+import java.util.ConcurrentModificationException;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Base of the open addressing int to long maps, whatever memory their table lives in.
+ *
+ * <p>The probing, insertion, growing and backward shift deletion come from
+ * {@link AbstractIntLongOpenAddressingHashMap}, generated from a template which reads
+ * the table through the slot accessors; they work like those of the array-backed maps
+ * of <tt>com.vodotiiets.primitive</tt>. This class adds the operations only the int to
+ * long maps offer: the single probe updates, the slot API, <tt>forEach</tt> and the
+ * cursor. A subclass only provides the storage of the table.
+ *
+ * @see OpenAddressingHashMap
+ * @see OffHeapOpenAddressingHashMap
+ * @see MappedOpenAddressingHashMap
+ *
+ * Created by Denys Vodotiiets.
+ */
+abstract class AbstractOpenAddressingHashMap extends AbstractIntLongOpenAddressingHashMap implements HashMap {
+
+    /**
+     * Validates the parameters of a map able to hold the specified number of
+     * mappings without growing and computes the capacity of its table, which
+     * the subclass then allocates.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in range (0, 1]
+     * @param  indexFunction   the strategy of mapping hashes onto table slots
+     * @param  mixer           the mixer applied to keys
+     * @param  seed            the seed of the mixer
+     * @throws IllegalArgumentException if the initial capacity is negative,
+     *         the load factor is out of range or the index function or mixer is null
+     */
+    AbstractOpenAddressingHashMap(int initialCapacity, float loadFactor, IndexFunction indexFunction,
+                                  HashMixer mixer, int seed) {
+        super(initialCapacity, loadFactor, indexFunction, mixer, seed);
+    }
+
+    /**
+     * Sets up a map with the default initial capacity (16) and the default
+     * load factor (0.75), whose table the subclass then allocates.
+     */
+    AbstractOpenAddressingHashMap() {
+    }
+
+    /**
+     * Adds the delta to the value of the specified key, which is <tt>0</tt>
+     * if the key is absent, with a single probe.
+     *
+     * @param key the key whose value is to be incremented
+     * @param delta the increment
+     * @return the new value of the key
+     * @throws IllegalStateException if map is full
+     */
+    public long addTo(int key, long delta) {
+        ensureOpen();
+
+        int slot = probeForPut(key);
+        if (slot >= 0) {
+            long value = value(slot) + delta;
+            setValue(slot, value);
+            return value;
+        }
+
+        insertAt(~slot, key, delta);
+        return delta;
+    }
+
+    /**
+     * Returns the value of the specified key, first associating the key with the
+     * value computed by the function if the key is absent. The function must not
+     * modify this map.
+     *
+     * @param key the key whose value is to be returned
+     * @param mappingFunction the function computing the value of an absent key
+     * @return the current value of the key
+     * @throws IllegalArgumentException if the function is null
+     * @throws ConcurrentModificationException if the function modifies the map
+     * @throws IllegalStateException if map is full
+     */
+    public long computeIfAbsent(int key, IntToLongFunction mappingFunction) {
+        if (mappingFunction == null) {
+            throw new IllegalArgumentException("Illegal mapping function: " + mappingFunction);
+        }
+        ensureOpen();
+
+        int slot = probeForPut(key);
+        if (slot >= 0) {
+            return value(slot);
+        }
+
+        int expectedModCount = modCount;
+        long value = mappingFunction.applyAsLong(key);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        insertAt(~slot, key, value);
+        return value;
+    }
+
+    /**
+     * Associates the specified key with the value if the key is absent, or else
+     * with the result of the function applied to its current value and the value,
+     * with a single probe.
+     *
+     * @param key the key whose value is to be merged
+     * @param value the value to put or merge
+     * @param remappingFunction the function merging the current value with the value
+     * @return the new value of the key
+     * @throws IllegalArgumentException if the function is null
+     * @throws IllegalStateException if map is full
+     */
+    public long merge(int key, long value, LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null) {
+            throw new IllegalArgumentException("Illegal remapping function: " + remappingFunction);
+        }
+        ensureOpen();
+
+        int slot = probeForPut(key);
+        if (slot >= 0) {
+            long newValue = remappingFunction.applyAsLong(value(slot), value);
+            setValue(slot, newValue);
+            return newValue;
+        }
+
+        insertAt(~slot, key, value);
+        return value;
+    }
+
+    /**
+     * Returns the slot of the table holding the specified key, or <tt>-1</tt>
+     * if there is none. The slot stays valid until the next <tt>put</tt> of an absent
+     * key or <tt>remove</tt>, and gives access to the mapping through
+     * {@link #keyAt}, {@link #valueAt} and {@link #setValueAt} without
+     * probing again.
+     *
+     * @param key the key to find
+     * @return the slot of the key, or <tt>-1</tt> if there is none
+     */
+    public int findSlot(int key) {
+        ensureOpen();
+
+        int slot = probeForGet(key);
+        return slot >= 0 ? slot : -1;
+    }
+
+    /**
+     * Returns the key held by the slot returned by {@link #findSlot}.
+     *
+     * @param slot the slot
+     * @return the key
+     * @throws IllegalArgumentException if the slot is out of the table
+     */
+    public int keyAt(int slot) {
+        checkSlot(slot);
+        return slot == capacity ? FREE_KEY : key(slot);
+    }
+
+    /**
+     * Returns the value held by the slot returned by {@link #findSlot}.
+     *
+     * @param slot the slot
+     * @return the value
+     * @throws IllegalArgumentException if the slot is out of the table
+     */
+    public long valueAt(int slot) {
+        checkSlot(slot);
+        return value(slot);
+    }
+
+    /**
+     * Replaces the value held by the slot returned by {@link #findSlot}.
+     *
+     * @param slot the slot
+     * @param value the new value
+     * @throws IllegalArgumentException if the slot is out of the table
+     */
+    public void setValueAt(int slot, long value) {
+        checkSlot(slot);
+        setValue(slot, value);
+    }
+
+    /**
+     * Throws if the slot is not a slot of the table.
+     */
+    private void checkSlot(int slot) {
+        ensureOpen();
+        if (slot < 0 || slot > capacity) {
+            throw new IllegalArgumentException("Illegal slot: " + slot);
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping of this map, in the order of
+     * the slots of the table, followed by the mapping of <tt>FREE_KEY</tt>.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws IllegalArgumentException if the action is null
+     * @throws ConcurrentModificationException if the action structurally modifies the map
+     */
+    public void forEach(IntLongConsumer action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Illegal action: " + action);
+        }
+        ensureOpen();
+
+        int currentKey;
+        int expectedModCount = modCount;
+
+        for (int i = 0; i < capacity; i++) {
+            if ((currentKey = key(i)) != FREE_KEY) {
+                action.accept(currentKey, value(i));
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+
+        if (containsFreeKey) {
+            action.accept(FREE_KEY, value(capacity));
+        }
+    }
+
+    /**
+     * Returns a cursor over the mappings of this map, in the order of the slots
+     * of the table, followed by the mapping of <tt>FREE_KEY</tt>. The cursor fails
+     * fast if the map is structurally modified while it is walked.
+     *
+     * @return a cursor positioned before the first mapping
+     */
+    public IntLongCursor cursor() {
+        ensureOpen();
+        return new Cursor();
+    }
+
+    /**
+     * Cursor over the slots of the table followed by the extra slot. The slot
+     * is <tt>capacity + 1</tt> once the cursor is exhausted.
+     */
+    private final class Cursor implements IntLongCursor {
+        private int slot = -1;
+        private int expectedModCount = modCount;
+
+        public boolean advance() {
+            checkForComodification();
+
+            while (++slot < capacity) {
+                if (AbstractOpenAddressingHashMap.this.key(slot) != FREE_KEY) {
+                    return true;
+                }
+            }
+
+            if (slot == capacity && containsFreeKey) {
+                return true;
+            }
+            slot = capacity + 1;
+            return false;
+        }
+
+        public int key() {
+            checkEntry();
+            return slot == capacity ? FREE_KEY : AbstractOpenAddressingHashMap.this.key(slot);
+        }
+
+        public long value() {
+            checkEntry();
+            return AbstractOpenAddressingHashMap.this.value(slot);
+        }
+
+        public void reset() {
+            slot = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkEntry() {
+            checkForComodification();
+            if (slot < 0 || slot > capacity) {
+                throw new IllegalStateException("No current entry!");
+            }
+        }
+
+        private void checkForComodification() {
+            ensureOpen();
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,730 @@
+package com.vodotiiets;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Thread-safe open addressing Hash Map based implementation of the <tt>HashMap</tt>
+ * interface.
+ *
+ * <p>The map is divided into a power of two number of segments, each of them an
+ * independent linear probing table laid out like <tt>OpenAddressingHashMap</tt>
+ * (parallel <tt>int[]</tt> keys and <tt>long[]</tt> values). The low bits of the hash
+ * select the home slot within a segment, and the high bits of a second, multiplicative
+ * mix of the hash select the segment, so the keys of a segment spread over all of its
+ * slots however large it grows. Writers lock only their segment, so updates of
+ * different segments proceed in parallel.
+ *
+ * <p>Readers take no lock at all: a <tt>get</tt> probes the segment under an optimistic
+ * stamp of its <tt>StampedLock</tt> and only falls back to the read lock if a writer
+ * changed the segment meanwhile. Every single-key operation is therefore linearizable,
+ * including removals which shift entries backward and resizes which replace the arrays
+ * of a segment. The size is kept in a <tt>LongAdder</tt>, so writers of different
+ * segments do not contend on a shared counter.
+ *
+ * <p><tt>size()</tt> and iteration are only weakly consistent: the size is a sum of
+ * counter cells read while other threads update them, and <tt>forEach</tt> and the
+ * cursor see every segment as of a different moment, so neither reflects a single
+ * state of the whole map under concurrent updates.
+ *
+ * @see HashMap
+ * @see OpenAddressingHashMap
+ *
+ * Created by Denys Vodotiiets.
+ */
+public class ConcurrentOpenAddressingHashMap implements HashMap {
+
+    /**
+     * The default initial capacity.
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The default number of segments.
+     */
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * The maximum capacity of a segment.
+     * MUST be a power of two <= 1<<30.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The maximum number of segments.
+     */
+    private static final int MAXIMUM_SEGMENTS = 1 << 16;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * The key which marks an unused slot of a segment. The mapping for
+     * this key itself is kept in the extra slot at the end of its segment.
+     */
+    private static final int FREE_KEY = 0;
+
+    /**
+     * The value <tt>get</tt> looks up with; only when it is found does
+     * <tt>get</tt> check again whether the key is actually present.
+     */
+    private static final long MISSING_VALUE = Long.MIN_VALUE;
+
+    /**
+     * Returns a power of two size for the given target capacity.
+     */
+    private static int tableSizeFor(int capacity) {
+        int size = capacity - 1;
+        size |= size >>> 1;
+        size |= size >>> 2;
+        size |= size >>> 4;
+        size |= size >>> 8;
+        size |= size >>> 16;
+        return (size < 0) ? 1 : (size >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : size + 1;
+    }
+
+    /**
+     * Returns the slot of key in the given keys array of a segment, or -1
+     * if there is none. Tolerates arrays being modified concurrently: the
+     * probe is bounded by the capacity, and its result is only trusted if
+     * the stamp it was read under is still valid.
+     */
+    private static int indexOf(int[] keys, int key, int hash) {
+        int capacity = keys.length - 1;
+
+        if (key == FREE_KEY) {
+            return keys[capacity] != FREE_KEY ? capacity : -1;
+        }
+
+        int currentKey;
+        int mask = capacity - 1;
+        int currentIndex = mask & hash;
+
+        for (int distance = 0; distance < capacity; distance++) {
+            if ((currentKey = keys[currentIndex]) == key) {
+                return currentIndex;
+            }
+
+            if (currentKey == FREE_KEY) {
+                return -1;
+            }
+            currentIndex = mask & (currentIndex + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * A linear probing table guarded by its own lock. Its arrays have
+     * <tt>capacity + 1</tt> slots; the key of the extra slot is non-zero when
+     * the segment holds the mapping for <tt>FREE_KEY</tt>.
+     */
+    static final class Segment extends StampedLock {
+        private static final long serialVersionUID = 1L;
+
+        int[] keys;
+        long[] values;
+        int count;
+        int threshold;
+        final float loadFactor;
+
+        Segment(int capacity, float loadFactor) {
+            this.loadFactor = loadFactor;
+            allocate(capacity);
+        }
+
+        /**
+         * Puts the mapping, must be called under the write lock.
+         *
+         * @return <tt>true</tt> if a new mapping was added
+         */
+        boolean put(int key, int hash, long value) {
+            int index;
+            if ((index = indexOf(keys, key, hash)) >= 0) {
+                values[index] = value;
+                return false;
+            }
+
+            add(key, hash, value);
+            return true;
+        }
+
+        /**
+         * Adds the mapping of an absent key, must be called under the write lock.
+         */
+        void add(int key, int hash, long value) {
+            if (key == FREE_KEY) {
+                int capacity = keys.length - 1;
+                values[capacity] = value;
+                keys[capacity] = 1;
+                return;
+            }
+
+            if (count >= threshold) {
+                resize();
+            }
+            insert(key, hash, value);
+            count++;
+        }
+
+        /**
+         * Removes the mapping, must be called under the write lock.
+         *
+         * @return <tt>true</tt> if the mapping was removed
+         */
+        boolean remove(int key, int hash) {
+            int index;
+            if ((index = indexOf(keys, key, hash)) < 0) {
+                return false;
+            }
+
+            if (key == FREE_KEY) {
+                keys[index] = FREE_KEY;
+                values[index] = 0;
+                return true;
+            }
+
+            shiftKeys(index);
+            count--;
+            return true;
+        }
+
+        /**
+         * Closes the gap left by a removed entry by backward shifting
+         * the rest of its cluster.
+         */
+        private void shiftKeys(int gap) {
+            int currentKey, homeIndex;
+            int mask = keys.length - 2;
+            int currentIndex = gap;
+
+            while ((currentKey = keys[currentIndex = mask & (currentIndex + 1)]) != FREE_KEY) {
+                homeIndex = mask & segmentHash(currentKey);
+                if (gap <= currentIndex ? (homeIndex <= gap || homeIndex > currentIndex)
+                        : (homeIndex <= gap && homeIndex > currentIndex)) {
+                    keys[gap] = currentKey;
+                    values[gap] = values[currentIndex];
+                    gap = currentIndex;
+                }
+            }
+
+            keys[gap] = FREE_KEY;
+            values[gap] = 0;
+        }
+
+        private void insert(int key, int hash, long value) {
+            int mask = keys.length - 2;
+            int currentIndex = mask & hash;
+
+            while (keys[currentIndex] != FREE_KEY) {
+                currentIndex = mask & (currentIndex + 1);
+            }
+
+            values[currentIndex] = value;
+            keys[currentIndex] = key;
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[capacity + 1];
+            values = new long[capacity + 1];
+            threshold = Math.min((int)(capacity * loadFactor), capacity - 1);
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            long[] oldValues = values;
+            int oldCapacity = oldKeys.length - 1;
+
+            if (oldCapacity >= MAXIMUM_CAPACITY) {
+                throw new IllegalStateException("There is no place for new data");
+            }
+
+            allocate(oldCapacity << 1);
+            keys[keys.length - 1] = oldKeys[oldCapacity];
+            values[values.length - 1] = oldValues[oldCapacity];
+
+            for (int j = 0; j < oldCapacity; ++j) {
+                int currentKey;
+                if ((currentKey = oldKeys[j]) != FREE_KEY) {
+                    insert(currentKey, segmentHash(currentKey), oldValues[j]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the hash of key. Segments need well mixed high bits as well
+     * as low bits, so the murmur3 finalizer is always used.
+     */
+    private static int segmentHash(int key) {
+        return HashMixer.MURMUR3.mix(key, 0);
+    }
+
+    /**
+     * The segments of the map.
+     */
+    private final Segment[] segments;
+
+    /**
+     * Shift which turns a hash into a segment index.
+     */
+    private final int segmentShift;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Constructs an empty <tt>ConcurrentOpenAddressingHashMap</tt> able to hold the
+     * specified number of mappings without growing, with the specified load factor
+     * and number of segments.
+     *
+     * @param  initialCapacity  the initial capacity
+     * @param  loadFactor       the load factor, in range (0, 1]
+     * @param  concurrencyLevel the estimated number of concurrently updating threads,
+     *                          rounded up to a power of two number of segments
+     * @throws IllegalArgumentException if the initial capacity is negative,
+     *         the load factor is out of range or the concurrency level is nonpositive
+     */
+    public ConcurrentOpenAddressingHashMap(int initialCapacity, float loadFactor, int concurrencyLevel) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+
+        if (loadFactor <= 0 || loadFactor > 1 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Illegal concurrency level: " + concurrencyLevel);
+        }
+
+        int segmentCount = tableSizeFor(Math.min(concurrencyLevel, MAXIMUM_SEGMENTS));
+        float ft = (float)initialCapacity / segmentCount / loadFactor + 1.0f;
+        int segmentCapacity = Math.max(ft < (float)MAXIMUM_CAPACITY ? tableSizeFor((int)ft) : MAXIMUM_CAPACITY, 2);
+
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity, loadFactor);
+        }
+        segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+    }
+
+    /**
+     * Constructs an empty <tt>ConcurrentOpenAddressingHashMap</tt> able to hold the
+     * specified number of mappings without growing, with the default load factor
+     * (0.75) and number of segments (16).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public ConcurrentOpenAddressingHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Constructs an empty <tt>ConcurrentOpenAddressingHashMap</tt> with the default
+     * initial capacity (16), load factor (0.75) and number of segments (16).
+     */
+    public ConcurrentOpenAddressingHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map. The result is
+     * exact only in the absence of concurrent updates.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        long sum = size.sum();
+        return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)sum;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for
+     * the key, the old value is replaced by the specified value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalStateException if map is full
+     */
+    public boolean put(int key, long value) {
+        int hash = segmentHash(key);
+        Segment segment = segmentFor(hash);
+        boolean added;
+
+        long stamp = segment.writeLock();
+        try {
+            added = segment.put(key, hash, value);
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+
+        if (added) {
+            size.increment();
+        }
+        return true;
+    }
+
+    /**
+     * Associates the specified value with the specified key if the key is not
+     * already associated with a value, atomically.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalStateException if map is full
+     */
+    public boolean putIfAbsent(int key, long value) {
+        int hash = segmentHash(key);
+        Segment segment = segmentFor(hash);
+        boolean added;
+
+        long stamp = segment.writeLock();
+        try {
+            if (added = indexOf(segment.keys, key, hash) < 0) {
+                segment.add(key, hash, value);
+            }
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+
+        if (added) {
+            size.increment();
+        }
+        return added;
+    }
+
+    /**
+     * Adds the delta to the value of the specified key, which is <tt>0</tt>
+     * if the key is absent, atomically.
+     *
+     * @param key the key whose value is to be incremented
+     * @param delta the increment
+     * @return the new value of the key
+     * @throws IllegalStateException if map is full
+     */
+    public long addTo(int key, long delta) {
+        int hash = segmentHash(key);
+        Segment segment = segmentFor(hash);
+        int index;
+        long value;
+
+        long stamp = segment.writeLock();
+        try {
+            if ((index = indexOf(segment.keys, key, hash)) >= 0) {
+                value = segment.values[index] += delta;
+            } else {
+                segment.add(key, hash, value = delta);
+            }
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+
+        if (index < 0) {
+            size.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value of the specified key, first associating the key with the
+     * value computed by the function if the key is absent, atomically. The function
+     * is called under the lock of the segment of the key, so it must be short and
+     * must not modify this map.
+     *
+     * @param key the key whose value is to be returned
+     * @param mappingFunction the function computing the value of an absent key
+     * @return the current value of the key
+     * @throws IllegalArgumentException if the function is null
+     * @throws IllegalStateException if map is full
+     */
+    public long computeIfAbsent(int key, IntToLongFunction mappingFunction) {
+        if (mappingFunction == null) {
+            throw new IllegalArgumentException("Illegal mapping function: " + mappingFunction);
+        }
+
+        int hash = segmentHash(key);
+        Segment segment = segmentFor(hash);
+        int index;
+        long value;
+
+        long stamp = segment.writeLock();
+        try {
+            if ((index = indexOf(segment.keys, key, hash)) >= 0) {
+                value = segment.values[index];
+            } else {
+                segment.add(key, hash, value = mappingFunction.applyAsLong(key));
+            }
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+
+        if (index < 0) {
+            size.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Associates the specified key with the value if the key is absent, or else
+     * with the result of the function applied to its current value and the value,
+     * atomically. The function is called under the lock of the segment of the key,
+     * so it must be short and must not modify this map.
+     *
+     * @param key the key whose value is to be merged
+     * @param value the value to put or merge
+     * @param remappingFunction the function merging the current value with the value
+     * @return the new value of the key
+     * @throws IllegalArgumentException if the function is null
+     * @throws IllegalStateException if map is full
+     */
+    public long merge(int key, long value, LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null) {
+            throw new IllegalArgumentException("Illegal remapping function: " + remappingFunction);
+        }
+
+        int hash = segmentHash(key);
+        Segment segment = segmentFor(hash);
+        int index;
+        long newValue;
+
+        long stamp = segment.writeLock();
+        try {
+            if ((index = indexOf(segment.keys, key, hash)) >= 0) {
+                newValue = segment.values[index] = remappingFunction.applyAsLong(segment.values[index], value);
+            } else {
+                segment.add(key, hash, newValue = value);
+            }
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+
+        if (index < 0) {
+            size.increment();
+        }
+        return newValue;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws IllegalStateException if map has no such key
+     */
+    public long get(int key) {
+        long value = getOrDefault(key, MISSING_VALUE);
+
+        if (value == MISSING_VALUE && !containsKey(key)) {
+            throw new IllegalStateException("No such key!");
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given value if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if there is no mapping
+     * @return the value to which the specified key is mapped, or
+     *         <tt>defaultValue</tt> if this map contains no mapping for the key
+     */
+    public long getOrDefault(int key, long defaultValue) {
+        int hash = segmentHash(key);
+        Segment segment = segmentFor(hash);
+        int index;
+        long value;
+
+        long stamp = segment.tryOptimisticRead();
+        int[] keys = segment.keys;
+        long[] values = segment.values;
+        index = keys.length == values.length ? indexOf(keys, key, hash) : -1;
+        value = index >= 0 ? values[index] : defaultValue;
+
+        if (!segment.validate(stamp)) {
+            stamp = segment.readLock();
+            try {
+                value = (index = indexOf(segment.keys, key, hash)) >= 0 ? segment.values[index] : defaultValue;
+            } finally {
+                segment.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the specified key.
+     *
+     * @param key the key whose presence is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the key
+     */
+    public boolean containsKey(int key) {
+        int hash = segmentHash(key);
+        Segment segment = segmentFor(hash);
+
+        long stamp = segment.tryOptimisticRead();
+        int[] keys = segment.keys;
+        boolean found = keys.length == segment.values.length && indexOf(keys, key, hash) >= 0;
+
+        if (!segment.validate(stamp)) {
+            stamp = segment.readLock();
+            try {
+                found = indexOf(segment.keys, key, hash) >= 0;
+            } finally {
+                segment.unlockRead(stamp);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return <tt>true</tt> if the removal occurred
+     */
+    public boolean remove(int key) {
+        int hash = segmentHash(key);
+        Segment segment = segmentFor(hash);
+        boolean removed;
+
+        long stamp = segment.writeLock();
+        try {
+            removed = segment.remove(key, hash);
+        } finally {
+            segment.unlockWrite(stamp);
+        }
+
+        if (removed) {
+            size.decrement();
+        }
+        return removed;
+    }
+
+    /**
+     * Performs the given action for each mapping of this map, segment by
+     * segment. The iteration is weakly consistent: every segment is seen as
+     * of one moment, and the action may modify the map.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws IllegalArgumentException if the action is null
+     */
+    public void forEach(IntLongConsumer action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Illegal action: " + action);
+        }
+
+        for (IntLongCursor cursor = new Cursor(); cursor.advance(); ) {
+            action.accept(cursor.key(), cursor.value());
+        }
+    }
+
+    /**
+     * Returns a weakly consistent cursor over the mappings of this map. The
+     * cursor copies the mappings of one segment at a time under its read lock
+     * into buffers it reuses, and never throws <tt>ConcurrentModificationException</tt>.
+     *
+     * @return a cursor positioned before the first mapping
+     */
+    public IntLongCursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Cursor over the copies of the mappings of the segments. The buffers
+     * grow to the largest segment and are kept for the following ones.
+     */
+    private final class Cursor implements IntLongCursor {
+        private int[] keys = new int[0];
+        private long[] values = new long[0];
+        private int count;
+        private int index;
+        private int segmentIndex;
+
+        public boolean advance() {
+            if (index < count && ++index < count) {
+                return true;
+            }
+
+            while (segmentIndex < segments.length) {
+                load(segments[segmentIndex++]);
+                if (count > 0) {
+                    index = 0;
+                    return true;
+                }
+            }
+
+            index = count;
+            return false;
+        }
+
+        public int key() {
+            checkEntry();
+            return keys[index];
+        }
+
+        public long value() {
+            checkEntry();
+            return values[index];
+        }
+
+        public void reset() {
+            count = index = segmentIndex = 0;
+        }
+
+        private void checkEntry() {
+            if (index >= count) {
+                throw new IllegalStateException("No current entry!");
+            }
+        }
+
+        private void load(Segment segment) {
+            long stamp = segment.readLock();
+            try {
+                int[] segmentKeys = segment.keys;
+                long[] segmentValues = segment.values;
+                int capacity = segmentKeys.length - 1;
+                int currentKey;
+
+                if (keys.length <= segment.count) {
+                    keys = new int[segment.count + 1];
+                    values = new long[segment.count + 1];
+                }
+
+                count = 0;
+                for (int j = 0; j < capacity; j++) {
+                    if ((currentKey = segmentKeys[j]) != FREE_KEY) {
+                        keys[count] = currentKey;
+                        values[count++] = segmentValues[j];
+                    }
+                }
+
+                if (segmentKeys[capacity] != FREE_KEY) {
+                    keys[count] = FREE_KEY;
+                    values[count++] = segmentValues[capacity];
+                }
+            } finally {
+                segment.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * Returns the segment of the given hash. The hash is mixed again, since once
+     * a segment has <tt>1 << segmentShift</tt> slots its home slots would take
+     * the very bits which select the segment, and only part of them would ever
+     * be used.
+     */
+    private Segment segmentFor(int hash) {
+        return segments[segmentShift == 32 ? 0 : HashMixer.FIBONACCI.mix(hash, 0) >>> segmentShift];
+    }
+}
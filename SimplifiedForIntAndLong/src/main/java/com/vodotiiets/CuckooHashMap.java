@@ -0,0 +1,779 @@
+package com.vodotiiets;
+
+import java.util.ConcurrentModificationException;
+import java.util.function.IntToLongFunction;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Bucketized cuckoo hashing based implementation of the <tt>HashMap</tt> interface.
+ *
+ * <p>The table is an array of buckets of four slots, and every key may live in
+ * only one of two buckets, chosen by the two halves of a 64-bit hash of the key.
+ * A lookup therefore compares the key with the eight slots of its two buckets,
+ * each a run of 16 bytes of keys, and reads one value, whatever the load of the
+ * table: its worst case is bounded, unlike the probe sequences of
+ * {@link OpenAddressingHashMap}. The table stays usable up to a load of about
+ * 0.95.
+ *
+ * <p>When both buckets of a new key are full, a random occupant of one of them is
+ * kicked out into its other bucket, and so on, until a free slot is found. A key
+ * left homeless after <tt>MAX_KICKS</tt> kicks goes to a small stash at the end of
+ * the table, which lookups scan only while it is not empty; when the stash is full
+ * too, the table is doubled. Removal from a bucket pulls back a stashed key of the
+ * bucket, so the stash drains as the map shrinks.
+ *
+ * <p>Keys and values are kept in two parallel primitive arrays (12 bytes per slot),
+ * so neither <tt>put</tt> nor <tt>get</tt> allocates. An unused slot is marked by
+ * key <tt>0</tt>; the mapping for key <tt>0</tt> itself lives in an extra slot at the
+ * end of the table.
+ *
+ * <p>The mappings are walked in the order of the table by <tt>forEach</tt> or by a
+ * reusable {@link IntLongCursor}, both of which fail fast if the map is structurally
+ * modified during the walk.
+ *
+ * @see HashMap
+ *
+ * Created by Denys Vodotiiets.
+ */
+public class CuckooHashMap implements HashMap {
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum number of slots of the table, used if a higher value is
+     * implicitly specified by either of the constructors with arguments.
+     * MUST be a power of two <= 1<<30.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    private static final float DEFAULT_LOAD_FACTOR = 0.9f;
+
+    /**
+     * The number of slots of a bucket - MUST be a power of two.
+     */
+    private static final int BUCKET_SIZE = 4;
+
+    /**
+     * The number of slots of the stash.
+     */
+    private static final int STASH_SIZE = 4;
+
+    /**
+     * The number of kicks tried before a key is stashed.
+     */
+    private static final int MAX_KICKS = 500;
+
+    /**
+     * The key which marks an unused slot of the table. The mapping for
+     * this key itself is kept in the extra slot at the end of the table.
+     */
+    private static final int FREE_KEY = 0;
+
+    /**
+     * Returns a power of two size for the given target capacity, at
+     * least two buckets.
+     */
+    private static int tableSizeFor(int capacity) {
+        int size = capacity - 1;
+        size |= size >>> 1;
+        size |= size >>> 2;
+        size |= size >>> 4;
+        size |= size >>> 8;
+        size |= size >>> 16;
+        return (size < 2 * BUCKET_SIZE) ? 2 * BUCKET_SIZE : (size >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : size + 1;
+    }
+
+    /**
+     * The keys of the table. Slot is unused if its key is <tt>FREE_KEY</tt>.
+     * The buckets are followed by the stash.
+     */
+    private int[] keys;
+
+    /**
+     * The values of the table, parallel to keys. The last slot is reserved
+     * for <tt>FREE_KEY</tt>.
+     */
+    private long[] values;
+
+    /**
+     * Whether the map contains a mapping for <tt>FREE_KEY</tt>.
+     */
+    private boolean containsFreeKey;
+
+    /**
+     * The number of slots of the buckets, a power of two.
+     */
+    private int capacity;
+
+    /**
+     * The number of buckets minus one.
+     */
+    private int bucketMask;
+
+    /**
+     * The number of used slots of the stash.
+     */
+    private int stashSize;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    private int size;
+
+    /**
+     * The number of times this map has been structurally modified, used
+     * to make iteration fail fast.
+     */
+    private int modCount;
+
+    /**
+     * The load factor for the hash map.
+     */
+    private final float loadFactor;
+
+    /**
+     * The number of slots which may be used before the table is
+     * doubled (capacity * load factor).
+     */
+    private int threshold;
+
+    /**
+     * The seed of the key hash.
+     */
+    private final long seed;
+
+    /**
+     * The state of the xorshift generator choosing the keys to kick.
+     */
+    private long random;
+
+    /**
+     * The key and value left homeless by the last failed {@link #place}.
+     */
+    private int homelessKey;
+    private long homelessValue;
+
+    /**
+     * Constructs an empty <tt>CuckooHashMap</tt> able to hold the specified number
+     * of mappings without growing, with the specified load factor and seed of the
+     * hash functions.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in range (0, 1]
+     * @param  seed            the seed of the hash functions, e.g. {@link HashMixer#randomSeed()}
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is out of range
+     */
+    public CuckooHashMap(int initialCapacity, float loadFactor, int seed) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        }
+
+        if (loadFactor <= 0 || loadFactor > 1 || Float.isNaN(loadFactor)) {
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        }
+
+        this.loadFactor = loadFactor;
+        this.seed = (long)seed << 32;
+        this.random = mix(this.seed | 1);
+
+        float ft = (float)initialCapacity / loadFactor + 1.0f;
+        allocate(ft >= (float)MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY : tableSizeFor((int)ft));
+    }
+
+    /**
+     * Constructs an empty <tt>CuckooHashMap</tt> able to hold the specified number
+     * of mappings without growing, with the specified load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in range (0, 1]
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is out of range
+     */
+    public CuckooHashMap(int initialCapacity, float loadFactor) {
+        this(initialCapacity, loadFactor, 0);
+    }
+
+    /**
+     * Constructs an empty <tt>CuckooHashMap</tt> able to hold the specified number
+     * of mappings without growing, with the default load factor (0.9).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public CuckooHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty <tt>CuckooHashMap</tt> with the default initial capacity
+     * (16) and the default load factor (0.9).
+     */
+    public CuckooHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalStateException if map is full
+     */
+    public boolean put(int key, long value) {
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            values[slot] = value;
+        } else {
+            insert(key, value);
+        }
+        return true;
+    }
+
+    /**
+     * Associates the specified value with the specified key if the key is not
+     * already associated with a value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalStateException if map is full
+     */
+    public boolean putIfAbsent(int key, long value) {
+        if (findSlot(key) >= 0) {
+            return false;
+        }
+
+        insert(key, value);
+        return true;
+    }
+
+    /**
+     * Adds the delta to the value of the specified key, which is <tt>0</tt>
+     * if the key is absent.
+     *
+     * @param key the key whose value is to be incremented
+     * @param delta the increment
+     * @return the new value of the key
+     * @throws IllegalStateException if map is full
+     */
+    public long addTo(int key, long delta) {
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            long value = values[slot] + delta;
+            values[slot] = value;
+            return value;
+        }
+
+        insert(key, delta);
+        return delta;
+    }
+
+    /**
+     * Returns the value of the specified key, first associating the key with the
+     * value computed by the function if the key is absent. The function must not
+     * modify this map.
+     *
+     * @param key the key whose value is to be returned
+     * @param mappingFunction the function computing the value of an absent key
+     * @return the current value of the key
+     * @throws IllegalArgumentException if the function is null
+     * @throws ConcurrentModificationException if the function modifies the map
+     * @throws IllegalStateException if map is full
+     */
+    public long computeIfAbsent(int key, IntToLongFunction mappingFunction) {
+        if (mappingFunction == null) {
+            throw new IllegalArgumentException("Illegal mapping function: " + mappingFunction);
+        }
+
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            return values[slot];
+        }
+
+        int expectedModCount = modCount;
+        long value = mappingFunction.applyAsLong(key);
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        insert(key, value);
+        return value;
+    }
+
+    /**
+     * Associates the specified key with the value if the key is absent, or else
+     * with the result of the function applied to its current value and the value.
+     *
+     * @param key the key whose value is to be merged
+     * @param value the value to put or merge
+     * @param remappingFunction the function merging the current value with the value
+     * @return the new value of the key
+     * @throws IllegalArgumentException if the function is null
+     * @throws IllegalStateException if map is full
+     */
+    public long merge(int key, long value, LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null) {
+            throw new IllegalArgumentException("Illegal remapping function: " + remappingFunction);
+        }
+
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            long newValue = remappingFunction.applyAsLong(values[slot], value);
+            values[slot] = newValue;
+            return newValue;
+        }
+
+        insert(key, value);
+        return value;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws IllegalStateException if map is empty or map has no such key
+     */
+    public long get(int key) {
+        if (size == 0) {
+            throw new IllegalStateException("Map is empty!");
+        }
+
+        int slot = findSlot(key);
+        if (slot < 0) {
+            throw new IllegalStateException("No such key!");
+        }
+        return values[slot];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given value if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if there is no mapping
+     * @return the value to which the specified key is mapped, or
+     *         <tt>defaultValue</tt> if this map contains no mapping for the key
+     */
+    public long getOrDefault(int key, long defaultValue) {
+        int slot = findSlot(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the specified key.
+     *
+     * @param key the key whose presence is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the key
+     */
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     * A stashed key of the bucket of the removed key takes its slot.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return <tt>true</tt> if the removal occurred
+     */
+    public boolean remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return false;
+        }
+
+        if (key == FREE_KEY) {
+            containsFreeKey = false;
+        } else {
+            keys[slot] = FREE_KEY;
+            if (slot >= capacity) {
+                stashSize--;
+            } else if (stashSize > 0) {
+                unstashInto(slot);
+            }
+        }
+        values[slot] = 0;
+        modCount++;
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the number of slots of the buckets of the table, excluding
+     * the stash.
+     *
+     * @return the number of slots of the buckets
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of keys in the stash.
+     *
+     * @return the number of keys in the stash
+     */
+    public int stashSize() {
+        return stashSize;
+    }
+
+    /**
+     * Performs the given action for each mapping of this map, in the order of
+     * the slots of the table and the stash, followed by the mapping of <tt>FREE_KEY</tt>.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws IllegalArgumentException if the action is null
+     * @throws ConcurrentModificationException if the action structurally modifies the map
+     */
+    public void forEach(IntLongConsumer action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Illegal action: " + action);
+        }
+
+        int currentKey;
+        int expectedModCount = modCount;
+
+        for (int i = 0; i < keys.length; i++) {
+            if ((currentKey = keys[i]) != FREE_KEY) {
+                action.accept(currentKey, values[i]);
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+
+        if (containsFreeKey) {
+            action.accept(FREE_KEY, values[keys.length]);
+        }
+    }
+
+    /**
+     * Returns a cursor over the mappings of this map, in the order of the slots
+     * of the table and the stash, followed by the mapping of <tt>FREE_KEY</tt>.
+     * The cursor fails fast if the map is structurally modified while it is walked.
+     *
+     * @return a cursor positioned before the first mapping
+     */
+    public IntLongCursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Cursor over the slots of the table and the stash followed by the extra
+     * slot. The slot is <tt>keys.length + 1</tt> once the cursor is exhausted.
+     */
+    private final class Cursor implements IntLongCursor {
+        private int slot = -1;
+        private int expectedModCount = modCount;
+
+        public boolean advance() {
+            checkForComodification();
+
+            while (++slot < keys.length) {
+                if (keys[slot] != FREE_KEY) {
+                    return true;
+                }
+            }
+
+            if (slot == keys.length && containsFreeKey) {
+                return true;
+            }
+            slot = keys.length + 1;
+            return false;
+        }
+
+        public int key() {
+            checkEntry();
+            return slot == keys.length ? FREE_KEY : keys[slot];
+        }
+
+        public long value() {
+            checkEntry();
+            return values[slot];
+        }
+
+        public void reset() {
+            slot = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkEntry() {
+            checkForComodification();
+            if (slot < 0 || slot > keys.length) {
+                throw new IllegalStateException("No current entry!");
+            }
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Returns the slot holding the key, or -1 if there is none. Only the two
+     * buckets of the key are read, and the stash if it is not empty.
+     */
+    private int findSlot(int key) {
+        if (key == FREE_KEY) {
+            return containsFreeKey ? keys.length : -1;
+        }
+
+        long hash = hash(key);
+        int first = firstBucket(hash);
+        int slot = findInBucket(key, first);
+        if (slot < 0) {
+            slot = findInBucket(key, secondBucket(hash, first));
+            if (slot < 0 && stashSize > 0) {
+                slot = findInStash(key);
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the slot of the bucket holding the key, or -1 if there is none.
+     */
+    private int findInBucket(int key, int bucket) {
+        int slot = bucket * BUCKET_SIZE;
+        int[] keys = this.keys;
+
+        if (keys[slot] == key) {
+            return slot;
+        }
+        if (keys[slot + 1] == key) {
+            return slot + 1;
+        }
+        if (keys[slot + 2] == key) {
+            return slot + 2;
+        }
+        if (keys[slot + 3] == key) {
+            return slot + 3;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot of the stash holding the key, or -1 if there is none.
+     */
+    private int findInStash(int key) {
+        for (int slot = capacity; slot < keys.length; slot++) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first unused slot of the bucket, or -1 if the bucket is full.
+     */
+    private int freeSlotOf(int bucket) {
+        return findInBucket(FREE_KEY, bucket);
+    }
+
+    /**
+     * Inserts an absent key, doubling the table when it is loaded beyond
+     * the threshold or when a key is left homeless by a full stash.
+     *
+     * @throws IllegalStateException if the table is already at maximum capacity
+     */
+    private void insert(int key, long value) {
+        if (key == FREE_KEY) {
+            containsFreeKey = true;
+            values[keys.length] = value;
+        } else {
+            if (size - (containsFreeKey ? 1 : 0) >= threshold) {
+                resize();
+            }
+            while (!place(key, value)) {
+                key = homelessKey;
+                value = homelessValue;
+                resize();
+            }
+        }
+        modCount++;
+        size++;
+    }
+
+    /**
+     * Stores the key into a free slot of one of its buckets, kicking the keys
+     * of full buckets into their other buckets along a random walk, or else
+     * into the stash.
+     *
+     * @return <tt>false</tt> if the key kicked out last found the stash full, in
+     *         which case it is left in <tt>homelessKey</tt> and <tt>homelessValue</tt>
+     */
+    private boolean place(int key, long value) {
+        long hash = hash(key);
+        int bucket = firstBucket(hash);
+        int other = secondBucket(hash, bucket);
+        int slot = freeSlotOf(bucket);
+
+        if (slot < 0 && (slot = freeSlotOf(other)) < 0) {
+            if (nextRandom() < 0) {
+                bucket = other;
+            }
+
+            for (int kick = 0; kick < MAX_KICKS && slot < 0; kick++) {
+                slot = bucket * BUCKET_SIZE + ((int)nextRandom() & (BUCKET_SIZE - 1));
+                int kickedKey = keys[slot];
+                long kickedValue = values[slot];
+                keys[slot] = key;
+                values[slot] = value;
+                key = kickedKey;
+                value = kickedValue;
+
+                hash = hash(key);
+                other = firstBucket(hash);
+                bucket = other != bucket ? other : secondBucket(hash, other);
+                slot = freeSlotOf(bucket);
+            }
+
+            if (slot < 0) {
+                if (stashSize == STASH_SIZE) {
+                    homelessKey = key;
+                    homelessValue = value;
+                    return false;
+                }
+                slot = findInStash(FREE_KEY);
+                stashSize++;
+            }
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        return true;
+    }
+
+    /**
+     * Moves a stashed key whose buckets include the bucket of the freed slot
+     * into that slot.
+     */
+    private void unstashInto(int freeSlot) {
+        int bucket = freeSlot / BUCKET_SIZE;
+
+        for (int slot = capacity; slot < keys.length; slot++) {
+            int key = keys[slot];
+            if (key != FREE_KEY) {
+                long hash = hash(key);
+                int first = firstBucket(hash);
+                if (first == bucket || secondBucket(hash, first) == bucket) {
+                    keys[freeSlot] = key;
+                    values[freeSlot] = values[slot];
+                    keys[slot] = FREE_KEY;
+                    values[slot] = 0;
+                    stashSize--;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Allocates an empty table of the given number of slots and computes
+     * its threshold.
+     */
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        bucketMask = newCapacity / BUCKET_SIZE - 1;
+        stashSize = 0;
+        keys = new int[newCapacity + STASH_SIZE];
+        values = new long[newCapacity + STASH_SIZE + 1];
+        threshold = (int)(newCapacity * loadFactor);
+    }
+
+    /**
+     * Doubles the table size and places every entry of the old table into
+     * the new one, doubling it again if some key is left homeless.
+     *
+     * @throws IllegalStateException if the table is already at maximum capacity
+     */
+    private void resize() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        int newCapacity = capacity;
+        boolean placed = false;
+
+        while (!placed) {
+            if (newCapacity >= MAXIMUM_CAPACITY) {
+                throw new IllegalStateException("There is no place for new data");
+            }
+
+            allocate(newCapacity <<= 1);
+            placed = true;
+            for (int i = 0; i < oldKeys.length && placed; i++) {
+                if (oldKeys[i] != FREE_KEY) {
+                    placed = place(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+        values[keys.length] = oldValues[oldKeys.length];
+    }
+
+    /**
+     * Hashes the key with a bijective mixer, whose two halves choose the
+     * two buckets of the key.
+     */
+    private long hash(int key) {
+        return mix(seed | (key & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Returns the first bucket of the hash.
+     */
+    private int firstBucket(long hash) {
+        return (int)hash & bucketMask;
+    }
+
+    /**
+     * Returns the second bucket of the hash, which always differs from the first.
+     */
+    private int secondBucket(long hash, int first) {
+        int second = (int)(hash >>> 32) & bucketMask;
+        return second != first ? second : first ^ 1;
+    }
+
+    /**
+     * Advances the xorshift generator choosing the keys to kick.
+     */
+    private long nextRandom() {
+        long x = random;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        return random = x;
+    }
+
+    /**
+     * The finalizer of 64-bit MurmurHash3, a bijection.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
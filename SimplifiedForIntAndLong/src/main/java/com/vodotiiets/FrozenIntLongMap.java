@@ -0,0 +1,408 @@
+package com.vodotiiets;
+
+import java.util.Arrays;
+
+/**
+ * Immutable int to long map backed by a minimal perfect hash function.
+ *
+ * <p>The <tt>n</tt> keys and values are stored in dense arrays of exactly <tt>n</tt>
+ * slots, and every key has a slot of its own, computed in the manner of PTHash: a
+ * 64-bit hash of the key selects a bucket of about four keys, and the pilot of the
+ * bucket, chosen at construction, is mixed with the hash into a position among
+ * about <tt>1.01 n</tt>. The few positions past the end of the arrays stand for the
+ * slots left free below it, which a small table lists. A lookup therefore reads one
+ * pilot and checks exactly one slot, on hits as well as on misses. The pilots add
+ * 32 bits per bucket, about a byte per key.
+ *
+ * <p>Buckets get their pilots largest first, by trying pilots until all keys of the
+ * bucket fall into free and distinct positions. The spare positions keep the search
+ * for the last buckets short, so construction takes expected linear time.
+ *
+ * <p>A map is built by {@link OpenAddressingHashMap#freeze()}, {@link #copyOf} or
+ * {@link #of}.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public final class FrozenIntLongMap {
+
+    /**
+     * The average number of keys in a bucket.
+     */
+    private static final int BUCKET_SIZE = 4;
+
+    /**
+     * The number of keys per spare position.
+     */
+    private static final int KEYS_PER_SPARE = 99;
+
+    /**
+     * The number of pilots tried before the seed is replaced.
+     */
+    private static final int MAXIMUM_PILOT = 1 << 20;
+
+    /**
+     * The seed tried first.
+     */
+    private static final long INITIAL_SEED = 0x9E3779B97F4A7C15L;
+
+    private final int[] keys;
+    private final long[] values;
+
+    /**
+     * The pilot of every bucket.
+     */
+    private final int[] pilots;
+
+    /**
+     * The free slots stood for by the positions past the end of the arrays.
+     */
+    private final int[] free;
+
+    /**
+     * The seed of the key hash, replaced if some bucket cannot be placed.
+     */
+    private final long seed;
+
+    /**
+     * Returns a frozen copy of the mappings of the given map, as walked by its
+     * cursor.
+     *
+     * @param map the map to copy
+     * @return the frozen map
+     * @throws IllegalArgumentException if the map is null
+     */
+    public static FrozenIntLongMap copyOf(HashMap map) {
+        if (map == null) {
+            throw new IllegalArgumentException("Illegal map: " + map);
+        }
+
+        int[] keys = new int[Math.max(map.size(), 1)];
+        long[] values = new long[keys.length];
+        IntLongCursor cursor = map.cursor();
+        int count = 0;
+
+        while (cursor.advance()) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count << 1);
+                values = Arrays.copyOf(values, count << 1);
+            }
+            keys[count] = cursor.key();
+            values[count++] = cursor.value();
+        }
+        return new FrozenIntLongMap(keys, values, count);
+    }
+
+    /**
+     * Returns a frozen map of the given keys, <tt>keys[i]</tt> being mapped to
+     * <tt>values[i]</tt>. The arrays are not retained.
+     *
+     * @param keys the distinct keys
+     * @param values the values of the keys
+     * @return the frozen map
+     * @throws IllegalArgumentException if an array is null, the arrays differ
+     *         in length or a key is repeated
+     */
+    public static FrozenIntLongMap of(int[] keys, long[] values) {
+        if (keys == null || values == null || keys.length != values.length) {
+            throw new IllegalArgumentException("Illegal keys and values: " + Arrays.toString(keys)
+                    + ", " + Arrays.toString(values));
+        }
+        return new FrozenIntLongMap(keys, values, keys.length);
+    }
+
+    /**
+     * Builds the map of the first <tt>size</tt> keys and values, retrying
+     * with another seed until every bucket gets a pilot.
+     */
+    private FrozenIntLongMap(int[] sourceKeys, long[] sourceValues, int size) {
+        keys = new int[size];
+        values = new long[size];
+        pilots = new int[Math.max(1, (size + BUCKET_SIZE - 1) / BUCKET_SIZE)];
+        free = new int[(size + KEYS_PER_SPARE - 1) / KEYS_PER_SPARE];
+
+        long currentSeed = INITIAL_SEED;
+        while (!place(sourceKeys, sourceValues, currentSeed)) {
+            currentSeed = mix(currentSeed + 1);
+        }
+        seed = currentSeed;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws IllegalStateException if map is empty or map has no such key
+     */
+    public long get(int key) {
+        if (keys.length == 0) {
+            throw new IllegalStateException("Map is empty!");
+        }
+
+        int slot = findSlot(key);
+        if (slot < 0) {
+            throw new IllegalStateException("No such key!");
+        }
+        return values[slot];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given value if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if there is no mapping
+     * @return the value to which the specified key is mapped, or
+     *         <tt>defaultValue</tt> if this map contains no mapping for the key
+     */
+    public long getOrDefault(int key, long defaultValue) {
+        int slot = findSlot(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the specified key.
+     *
+     * @param key the key whose presence is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the key
+     */
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Performs the given action for each mapping of this map, in the order of
+     * the slots.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws IllegalArgumentException if the action is null
+     */
+    public void forEach(IntLongConsumer action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Illegal action: " + action);
+        }
+
+        for (int slot = 0; slot < keys.length; slot++) {
+            action.accept(keys[slot], values[slot]);
+        }
+    }
+
+    /**
+     * Returns a cursor over the mappings of this map, in the order of the slots.
+     *
+     * @return a cursor over the mappings of this map
+     */
+    public IntLongCursor cursor() {
+        return new Cursor();
+    }
+
+    private final class Cursor implements IntLongCursor {
+        private int slot = -1;
+
+        public boolean advance() {
+            if (slot < keys.length) {
+                slot++;
+            }
+            return slot < keys.length;
+        }
+
+        public int key() {
+            return keys[checkedSlot()];
+        }
+
+        public long value() {
+            return values[checkedSlot()];
+        }
+
+        public void reset() {
+            slot = -1;
+        }
+
+        private int checkedSlot() {
+            if (slot < 0 || slot >= keys.length) {
+                throw new IllegalStateException("No current entry!");
+            }
+            return slot;
+        }
+    }
+
+    /**
+     * Returns the slot of the key, or -1 if the map has no such key.
+     */
+    private int findSlot(int key) {
+        if (keys.length == 0) {
+            return -1;
+        }
+
+        long hash = hash(key, seed);
+        int slot = position(hash, pilots[bucket(hash, pilots.length)], keys.length + free.length);
+        if (slot >= keys.length) {
+            slot = free[slot - keys.length];
+        }
+        return keys[slot] == key ? slot : -1;
+    }
+
+    /**
+     * Finds the pilots of all buckets, largest buckets first, and stores the
+     * mappings into their slots, filling the table of free slots.
+     *
+     * @return <tt>false</tt> if some bucket could not be placed with this seed
+     * @throws IllegalArgumentException if a key is repeated
+     */
+    private boolean place(int[] sourceKeys, long[] sourceValues, long seed) {
+        int size = keys.length;
+        int positions = size + free.length;
+        int bucketCount = pilots.length;
+        long[] hashes = new long[size];
+        int[] bucketStarts = new int[bucketCount + 1];
+
+        for (int i = 0; i < size; i++) {
+            hashes[i] = hash(sourceKeys[i], seed);
+            bucketStarts[bucket(hashes[i], bucketCount) + 1]++;
+        }
+
+        int maxBucketSize = 0;
+        for (int b = 0; b < bucketCount; b++) {
+            maxBucketSize = Math.max(maxBucketSize, bucketStarts[b + 1]);
+            bucketStarts[b + 1] += bucketStarts[b];
+        }
+
+        // sort the items by bucket
+        int[] items = new int[size];
+        int[] fill = Arrays.copyOf(bucketStarts, bucketCount);
+        for (int i = 0; i < size; i++) {
+            items[fill[bucket(hashes[i], bucketCount)]++] = i;
+        }
+
+        // sort the buckets by size, largest first
+        int[] sizeStarts = new int[maxBucketSize + 2];
+        for (int b = 0; b < bucketCount; b++) {
+            sizeStarts[maxBucketSize - (bucketStarts[b + 1] - bucketStarts[b]) + 1]++;
+        }
+        for (int s = 0; s <= maxBucketSize; s++) {
+            sizeStarts[s + 1] += sizeStarts[s];
+        }
+        int[] order = new int[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            order[sizeStarts[maxBucketSize - (bucketStarts[b + 1] - bucketStarts[b])]++] = b;
+        }
+
+        long[] taken = new long[(positions + 63) >>> 6];
+        int[] itemPositions = new int[size];
+        int[] bucketPositions = new int[maxBucketSize];
+
+        for (int b : order) {
+            int start = bucketStarts[b], end = bucketStarts[b + 1];
+            if (start == end) {
+                break;
+            }
+
+            for (int i = start; i < end; i++) {
+                for (int j = start; j < i; j++) {
+                    if (hashes[items[i]] == hashes[items[j]]) {
+                        throw new IllegalArgumentException("Duplicate key: " + sourceKeys[items[i]]);
+                    }
+                }
+            }
+
+            int pilot = 0;
+            while (!tryPilot(hashes, items, start, end, pilot, positions, taken, bucketPositions)) {
+                if (++pilot == MAXIMUM_PILOT) {
+                    return false;
+                }
+            }
+
+            pilots[b] = pilot;
+            for (int i = start; i < end; i++) {
+                int position = bucketPositions[i - start];
+                taken[position >>> 6] |= 1L << position;
+                itemPositions[items[i]] = position;
+            }
+        }
+
+        // exactly as many positions past the end are taken as slots are left free
+        int freeSlot = 0;
+        for (int position = size; position < positions; position++) {
+            if ((taken[position >>> 6] & (1L << position)) != 0) {
+                while ((taken[freeSlot >>> 6] & (1L << freeSlot)) != 0) {
+                    freeSlot++;
+                }
+                free[position - size] = freeSlot++;
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            int slot = itemPositions[i];
+            if (slot >= size) {
+                slot = free[slot - size];
+            }
+            keys[slot] = sourceKeys[i];
+            values[slot] = sourceValues[i];
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the pilot sends every item of the bucket into a free
+     * position of its own, storing the positions into <tt>bucketPositions</tt>.
+     */
+    private static boolean tryPilot(long[] hashes, int[] items, int start, int end, int pilot,
+                                    int positions, long[] taken, int[] bucketPositions) {
+        for (int i = start; i < end; i++) {
+            int position = position(hashes[items[i]], pilot, positions);
+            if ((taken[position >>> 6] & (1L << position)) != 0) {
+                return false;
+            }
+            for (int j = 0; j < i - start; j++) {
+                if (bucketPositions[j] == position) {
+                    return false;
+                }
+            }
+            bucketPositions[i - start] = position;
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the key with a bijective mixer, so that distinct keys have
+     * distinct hashes.
+     */
+    private static long hash(int key, long seed) {
+        return mix(key ^ seed);
+    }
+
+    /**
+     * Maps the high half of the hash onto the buckets.
+     */
+    private static int bucket(long hash, int bucketCount) {
+        return (int)(((hash >>> 32) * bucketCount) >>> 32);
+    }
+
+    /**
+     * Maps the hash mixed with the pilot onto the positions.
+     */
+    private static int position(long hash, int pilot, int positions) {
+        return (int)(((mix(hash ^ (pilot * INITIAL_SEED)) >>> 32) * positions) >>> 32);
+    }
+
+    /**
+     * The finalizer of 64-bit MurmurHash3, a bijection.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,5 +1,8 @@
 package com.vodotiiets;
 
+import java.util.function.IntToLongFunction;
+import java.util.function.LongBinaryOperator;
+
 /**
  * An object that maps keys to values.  A map cannot contain duplicate keys;
  * each key can map to at most one value.
@@ -29,6 +32,54 @@ public interface HashMap {
      */
     boolean put(int key, long value);
 
+    /**
+     * Associates the specified value with the specified key if the key is not
+     * already associated with a value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the addition occurred
+     * @throws IllegalStateException if map is full
+     */
+    boolean putIfAbsent(int key, long value);
+
+    /**
+     * Adds the delta to the value of the specified key, which is <tt>0</tt>
+     * if the key is absent.
+     *
+     * @param key the key whose value is to be incremented
+     * @param delta the increment
+     * @return the new value of the key
+     * @throws IllegalStateException if map is full
+     */
+    long addTo(int key, long delta);
+
+    /**
+     * Returns the value of the specified key, first associating the key with the
+     * value computed by the function if the key is absent. The function must not
+     * modify this map.
+     *
+     * @param key the key whose value is to be returned
+     * @param mappingFunction the function computing the value of an absent key
+     * @return the current value of the key
+     * @throws IllegalArgumentException if the function is null
+     * @throws IllegalStateException if map is full
+     */
+    long computeIfAbsent(int key, IntToLongFunction mappingFunction);
+
+    /**
+     * Associates the specified key with the value if the key is absent, or else
+     * with the result of the function applied to its current value and the value.
+     *
+     * @param key the key whose value is to be merged
+     * @param value the value to put or merge
+     * @param remappingFunction the function merging the current value with the value
+     * @return the new value of the key
+     * @throws IllegalArgumentException if the function is null
+     * @throws IllegalStateException if map is full
+     */
+    long merge(int key, long value, LongBinaryOperator remappingFunction);
+
     /**
      * Returns the value to which the specified key is mapped.
      *
@@ -38,4 +89,49 @@ public interface HashMap {
      * @throws IllegalStateException if map is empty or map has no such key
      */
     long get(int key);
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given value if this map contains no mapping for the key. Unlike
+     * <tt>get</tt>, never throws on a missing key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if there is no mapping
+     * @return the value to which the specified key is mapped, or
+     *         <tt>defaultValue</tt> if this map contains no mapping for the key
+     */
+    long getOrDefault(int key, long defaultValue);
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the specified key.
+     *
+     * @param key the key whose presence is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the key
+     */
+    boolean containsKey(int key);
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return <tt>true</tt> if the removal occurred
+     */
+    boolean remove(int key);
+
+    /**
+     * Performs the given action for each mapping of this map.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws IllegalArgumentException if the action is null
+     * @throws java.util.ConcurrentModificationException if the action structurally
+     *         modifies a map which does not allow that
+     */
+    void forEach(IntLongConsumer action);
+
+    /**
+     * Returns a cursor over the mappings of this map.
+     *
+     * @return a cursor positioned before the first mapping
+     */
+    IntLongCursor cursor();
 }
@@ -0,0 +1,72 @@
+package com.vodotiiets;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Functions which scramble a 32-bit hash code before it is mapped onto a table slot.
+ *
+ * <p>Identity-like hash codes of sequential or strided keys form long runs of
+ * neighbouring slots under linear probing; a stronger mixer spreads them over the
+ * whole table. Every mixer is combined with a seed, which may be chosen at random
+ * per map instance (see {@link #randomSeed()}) to make collisions unpredictable
+ * for an adversary.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public enum HashMixer {
+
+    /**
+     * Spreads (XORs) higher bits of hash to lower. Cheapest, but keeps the
+     * regularities of the hash codes.
+     */
+    SPREAD,
+
+    /**
+     * The finalization mix of MurmurHash3 (<tt>fmix32</tt>). Every input bit
+     * affects every output bit.
+     */
+    MURMUR3,
+
+    /**
+     * Fibonacci (multiplicative) hashing: takes the upper half of the 64-bit
+     * product of the hash and the golden ratio.
+     */
+    FIBONACCI;
+
+    /**
+     * The 64-bit golden ratio.
+     */
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Returns a random seed suitable for a single map instance.
+     *
+     * @return a random seed
+     */
+    public static int randomSeed() {
+        return ThreadLocalRandom.current().nextInt();
+    }
+
+    /**
+     * Scrambles the given hash code.
+     *
+     * @param h the hash code
+     * @param seed the seed of the map
+     * @return the mixed hash
+     */
+    public int mix(int h, int seed) {
+        h ^= seed;
+        switch (this) {
+            case MURMUR3:
+                h ^= h >>> 16;
+                h *= 0x85EBCA6B;
+                h ^= h >>> 13;
+                h *= 0xC2B2AE35;
+                return h ^ (h >>> 16);
+            case FIBONACCI:
+                return (int)((h * GOLDEN_RATIO) >>> 32);
+            default:
+                return h ^ (h >>> 16);
+        }
+    }
+}
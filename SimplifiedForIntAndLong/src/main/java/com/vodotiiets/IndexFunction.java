@@ -0,0 +1,27 @@
+package com.vodotiiets;
+
+/**
+ * Strategies of mapping a hash onto a slot of an <tt>OpenAddressingHashMap</tt> table.
+ *
+ * <p>Both strategies map hashes uniformly over the whole table, they differ in which
+ * table capacities they allow.
+ *
+ * @see OpenAddressingHashMap
+ *
+ * Created by Denys Vodotiiets.
+ */
+public enum IndexFunction {
+
+    /**
+     * Takes the low bits of the hash. The table capacity is always rounded up
+     * to a power of two, and grows by doubling.
+     */
+    POWER_OF_TWO_MASK,
+
+    /**
+     * Lemire's fast range reduction: the hash is scrambled by a Fibonacci multiply
+     * and then mapped with <tt>(hash * capacity) >>> 32</tt>. The table capacity
+     * may be any size, so tables can be sized exactly to a memory budget.
+     */
+    FAST_RANGE
+}
@@ -0,0 +1,18 @@
+package com.vodotiiets;
+
+/**
+ * An operation that accepts a mapping of an <tt>int</tt> key to a <tt>long</tt>
+ * value, without boxing either of them.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public interface IntLongConsumer {
+
+    /**
+     * Performs this operation on the given mapping.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    void accept(int key, long value);
+}
@@ -0,0 +1,43 @@
+package com.vodotiiets;
+
+/**
+ * A cursor over the mappings of a map. A cursor starts before the first mapping
+ * and every <tt>advance</tt> moves it to the next one, whose key and value are then
+ * read without allocating an entry object. A cursor can be reset and walked again,
+ * so a single cursor serves any number of passes over the map.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public interface IntLongCursor {
+
+    /**
+     * Moves the cursor to the next mapping.
+     *
+     * @return <tt>true</tt> if the cursor is on a mapping, <tt>false</tt> if
+     *         all mappings have been visited
+     * @throws java.util.ConcurrentModificationException if the map has been
+     *         structurally modified since the cursor was created or reset
+     */
+    boolean advance();
+
+    /**
+     * Returns the key of the current mapping.
+     *
+     * @return the key of the current mapping
+     * @throws IllegalStateException if the cursor is not on a mapping
+     */
+    int key();
+
+    /**
+     * Returns the value of the current mapping.
+     *
+     * @return the value of the current mapping
+     * @throws IllegalStateException if the cursor is not on a mapping
+     */
+    long value();
+
+    /**
+     * Moves the cursor back before the first mapping.
+     */
+    void reset();
+}
@@ -0,0 +1,91 @@
+package com.vodotiiets;
+
+import java.util.Arrays;
+
+/**
+ * A snapshot of the statistics of a map, see {@link MapStatisticsMXBean}.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public final class MapStatistics implements MapStatisticsMXBean {
+
+    private final boolean enabled;
+    private final int size;
+    private final int capacity;
+    private final int maxClusterLength;
+    private final long resizeCount;
+    private final long resizeNanos;
+    private final long[][] histograms = new long[4][];
+
+    /**
+     * Takes a snapshot of the given state and of the recorder, which is null
+     * if the statistics mode is off.
+     */
+    MapStatistics(int size, int capacity, int maxClusterLength, StatisticsRecorder recorder) {
+        this.enabled = recorder != null;
+        this.size = size;
+        this.capacity = capacity;
+        this.maxClusterLength = maxClusterLength;
+        this.resizeCount = enabled ? recorder.resizeCount() : 0;
+        this.resizeNanos = enabled ? recorder.resizeNanos() : 0;
+
+        for (int operation = 0; operation < histograms.length; operation++) {
+            histograms[operation] = enabled ? recorder.histogram(operation)
+                    : new long[StatisticsRecorder.HISTOGRAM_SIZE];
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public double getLoadFactor() {
+        return capacity == 0 ? 0 : (double)size / capacity;
+    }
+
+    public int getMaxClusterLength() {
+        return maxClusterLength;
+    }
+
+    public long getResizeCount() {
+        return resizeCount;
+    }
+
+    public long getResizeNanos() {
+        return resizeNanos;
+    }
+
+    public long[] getPutHitProbeLengths() {
+        return histograms[StatisticsRecorder.PUT_HIT].clone();
+    }
+
+    public long[] getPutMissProbeLengths() {
+        return histograms[StatisticsRecorder.PUT_MISS].clone();
+    }
+
+    public long[] getGetHitProbeLengths() {
+        return histograms[StatisticsRecorder.GET_HIT].clone();
+    }
+
+    public long[] getGetMissProbeLengths() {
+        return histograms[StatisticsRecorder.GET_MISS].clone();
+    }
+
+    public String toString() {
+        return "MapStatistics{enabled=" + enabled + ", size=" + size + ", capacity=" + capacity
+                + ", loadFactor=" + getLoadFactor() + ", maxClusterLength=" + maxClusterLength
+                + ", resizeCount=" + resizeCount + ", resizeNanos=" + resizeNanos
+                + ", putHitProbeLengths=" + Arrays.toString(histograms[StatisticsRecorder.PUT_HIT])
+                + ", putMissProbeLengths=" + Arrays.toString(histograms[StatisticsRecorder.PUT_MISS])
+                + ", getHitProbeLengths=" + Arrays.toString(histograms[StatisticsRecorder.GET_HIT])
+                + ", getMissProbeLengths=" + Arrays.toString(histograms[StatisticsRecorder.GET_MISS]) + "}";
+    }
+}
@@ -0,0 +1,485 @@
+package com.vodotiiets;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Open addressing Hash Map implementation of the <tt>HashMap</tt> interface whose
+ * table lives in a memory-mapped file, so that it survives the process.
+ *
+ * <p>The table has the layout of {@link OpenAddressingHashMap} and shares its probing
+ * core: linear probing over parallel key and value arrays, key <tt>0</tt> marking an
+ * unused slot and having its own mapping in an extra slot at the end, power of two
+ * doubling and backward shift deletion. This class only provides the storage of the
+ * table. The file starts with a versioned header:
+ *
+ * <pre>
+ *  offset  field
+ *       0  magic number "OAHM"
+ *       4  format version
+ *       8  layout (parallel int keys and long values)
+ *      12  capacity
+ *      16  size
+ *      20  whether key 0 is present
+ *      24  seed of the mixer
+ *      28  hash mixer
+ *      32  index function
+ *      36  load factor
+ *      64  keys, capacity + 1 ints padded to 8 bytes, then values, capacity + 1 longs
+ * </pre>
+ *
+ * All numbers are little-endian. Opening an existing file only validates its header,
+ * including that the size leaves a slot of the table unused, and maps it, so
+ * <tt>get</tt> can be served at once while the operating system pages the table
+ * in on demand.
+ *
+ * <p>Writes go to the mapping and reach the file whenever the operating system
+ * flushes it; {@link #force()} makes everything written so far durable. The file is
+ * only guaranteed to be consistent at those points. Growing the table writes the
+ * doubled table to a temporary file next to the map, forces it, atomically moves it
+ * over the map file and forces the directory, so a crash while growing leaves either
+ * the previous or the doubled table. An operation which has to grow the table throws
+ * <tt>UncheckedIOException</tt> if the file cannot be grown.
+ *
+ * <p>Every map must be {@link #close() closed}, which forces it. Like the heap map,
+ * this implementation is not synchronized, and a file must not be opened by two maps
+ * at once.
+ *
+ * @see OpenAddressingHashMap
+ *
+ * Created by Denys Vodotiiets.
+ */
+public class MappedOpenAddressingHashMap extends AbstractOpenAddressingHashMap implements Closeable {
+
+    private static final int MAGIC = 0x4D48414F;
+    private static final int VERSION = 1;
+    private static final int LAYOUT_PARALLEL_ARRAYS = 1;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int LAYOUT_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int SIZE_OFFSET = 16;
+    private static final int FREE_KEY_OFFSET = 20;
+    private static final int SEED_OFFSET = 24;
+    private static final int MIXER_OFFSET = 28;
+    private static final int INDEX_FUNCTION_OFFSET = 32;
+    private static final int LOAD_FACTOR_OFFSET = 36;
+
+    /**
+     * The size of the header, where the keys start.
+     */
+    private static final int HEADER_SIZE = 64;
+
+    /**
+     * The file is mapped in chunks of <tt>1 << CHUNK_SHIFT</tt> bytes, since a
+     * single mapping cannot exceed 2 GB. Slots never straddle two chunks.
+     */
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    /**
+     * Returns the offset of the values of a table of the given capacity.
+     */
+    private static long valuesOffsetFor(int capacity) {
+        return HEADER_SIZE + (((long)(capacity + 1) * 4 + 7) & ~7L);
+    }
+
+    /**
+     * Returns the length of the file of a table of the given capacity.
+     */
+    private static long fileSizeFor(int capacity) {
+        return valuesOffsetFor(capacity) + (long)(capacity + 1) * 8;
+    }
+
+    /**
+     * The file of the map.
+     */
+    private final Path file;
+
+    /**
+     * The channel of the file, or <tt>null</tt> once the map is closed.
+     */
+    private FileChannel channel;
+
+    /**
+     * The mappings of the file, chunk by chunk.
+     */
+    private MappedByteBuffer[] chunks;
+
+    /**
+     * The file offset of the values of the table.
+     */
+    private long valuesOffset;
+
+    /**
+     * The channel of the file replaced by the last <tt>allocate</tt>, until
+     * it is released.
+     */
+    private FileChannel oldChannel;
+
+    /**
+     * The mappings of the replaced file.
+     */
+    private MappedByteBuffer[] oldChunks;
+
+    /**
+     * The file offset of the values of the replaced table.
+     */
+    private long oldValuesOffset;
+
+    /**
+     * Opens the map stored in the specified file, or creates an empty map able to
+     * hold the specified number of mappings without growing, with the specified load
+     * factor, index function and hash mixer if the file does not exist or is empty.
+     * The parameters of an existing map are read from its header, and the specified
+     * ones are then ignored.
+     *
+     * @param  file            the file of the map
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in range (0, 1]
+     * @param  indexFunction   the strategy of mapping hashes onto table slots
+     * @param  mixer           the mixer applied to keys
+     * @param  seed            the seed of the mixer, e.g. {@link HashMixer#randomSeed()}
+     * @throws IllegalArgumentException if the initial capacity is negative,
+     *         the load factor is out of range, the index function or mixer is null
+     *         or the file is not a map file of a supported version
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedOpenAddressingHashMap(Path file, int initialCapacity, float loadFactor,
+                                       IndexFunction indexFunction, HashMixer mixer, int seed)
+            throws IOException {
+        super(initialCapacity, loadFactor, indexFunction, mixer, seed);
+
+        if (file == null) {
+            throw new IllegalArgumentException("Illegal file: " + file);
+        }
+
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            if (channel.size() == 0) {
+                chunks = map(channel, fileSizeFor(capacity));
+                putInt(chunks, MAGIC_OFFSET, MAGIC);
+                putInt(chunks, VERSION_OFFSET, VERSION);
+                putInt(chunks, LAYOUT_OFFSET, LAYOUT_PARALLEL_ARRAYS);
+                putInt(chunks, CAPACITY_OFFSET, capacity);
+                putInt(chunks, SEED_OFFSET, seed);
+                putInt(chunks, MIXER_OFFSET, mixer.ordinal());
+                putInt(chunks, INDEX_FUNCTION_OFFSET, indexFunction.ordinal());
+                putInt(chunks, LOAD_FACTOR_OFFSET, Float.floatToIntBits(loadFactor));
+            } else {
+                if (channel.size() < HEADER_SIZE) {
+                    throw new IllegalArgumentException("Illegal map file: " + file);
+                }
+
+                chunks = map(channel, HEADER_SIZE);
+                if (getInt(chunks, MAGIC_OFFSET) != MAGIC
+                        || getInt(chunks, LAYOUT_OFFSET) != LAYOUT_PARALLEL_ARRAYS) {
+                    throw new IllegalArgumentException("Illegal map file: " + file);
+                }
+
+                if (getInt(chunks, VERSION_OFFSET) != VERSION) {
+                    throw new IllegalArgumentException("Unsupported map file version: "
+                            + getInt(chunks, VERSION_OFFSET));
+                }
+
+                int storedCapacity = getInt(chunks, CAPACITY_OFFSET);
+                int storedSize = getInt(chunks, SIZE_OFFSET);
+                int storedFreeKey = getInt(chunks, FREE_KEY_OFFSET);
+                int storedMixer = getInt(chunks, MIXER_OFFSET);
+                int storedIndexFunction = getInt(chunks, INDEX_FUNCTION_OFFSET);
+                float storedLoadFactor = Float.intBitsToFloat(getInt(chunks, LOAD_FACTOR_OFFSET));
+
+                // the keys other than FREE_KEY must leave a slot unused, or probes never end
+                if (storedCapacity < 2 || storedCapacity > MAXIMUM_CAPACITY
+                        || (storedFreeKey != 0 && storedFreeKey != 1)
+                        || storedSize < storedFreeKey || storedSize - storedFreeKey > storedCapacity - 1
+                        || storedMixer < 0 || storedMixer >= HashMixer.values().length
+                        || storedIndexFunction < 0 || storedIndexFunction >= IndexFunction.values().length
+                        || (storedIndexFunction == IndexFunction.POWER_OF_TWO_MASK.ordinal()
+                                && (storedCapacity & (storedCapacity - 1)) != 0)
+                        || !(storedLoadFactor > 0 && storedLoadFactor <= 1)
+                        || channel.size() != fileSizeFor(storedCapacity)) {
+                    throw new IllegalArgumentException("Illegal map file: " + file);
+                }
+
+                this.loadFactor = storedLoadFactor;
+                this.fastRange = IndexFunction.values()[storedIndexFunction] == IndexFunction.FAST_RANGE;
+                this.mixer = HashMixer.values()[storedMixer];
+                this.seed = getInt(chunks, SEED_OFFSET);
+
+                setCapacity(storedCapacity);
+                chunks = map(channel, fileSizeFor(capacity));
+                size = storedSize;
+                containsFreeKey = storedFreeKey != 0;
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        valuesOffset = valuesOffsetFor(capacity);
+    }
+
+    /**
+     * Opens the map stored in the specified file, or creates an empty map able to
+     * hold the specified number of mappings without growing, with the specified load
+     * factor and power of two masking.
+     *
+     * @param  file            the file of the map
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in range (0, 1]
+     * @throws IllegalArgumentException if the initial capacity is negative, the load
+     *         factor is out of range or the file is not a map file of a supported version
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedOpenAddressingHashMap(Path file, int initialCapacity, float loadFactor) throws IOException {
+        this(file, initialCapacity, loadFactor, IndexFunction.POWER_OF_TWO_MASK, HashMixer.SPREAD, 0);
+    }
+
+    /**
+     * Opens the map stored in the specified file, or creates an empty map able to
+     * hold 16 mappings without growing, with the default load factor (0.75).
+     *
+     * @param  file the file of the map
+     * @throws IllegalArgumentException if the file is not a map file of a supported version
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedOpenAddressingHashMap(Path file) throws IOException {
+        this(file, DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Writes every change made so far to the file, so that it survives
+     * a crash of the process or of the system.
+     *
+     * @throws IllegalStateException if map is closed
+     */
+    public void force() {
+        ensureOpen();
+
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Forces the map to the file and closes it. Closing an already closed
+     * map has no effect. The mapping itself is released once it is garbage
+     * collected.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    public void close() throws IOException {
+        if (channel != null) {
+            force();
+            chunks = null;
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Throws if this map has been closed.
+     */
+    void ensureOpen() {
+        if (channel == null) {
+            throw new IllegalStateException("Map is closed!");
+        }
+    }
+
+    /**
+     * Writes the size and the presence of <tt>FREE_KEY</tt> to the header.
+     */
+    void sizeChanged() {
+        putInt(chunks, SIZE_OFFSET, size);
+        putInt(chunks, FREE_KEY_OFFSET, containsFreeKey ? 1 : 0);
+    }
+
+    int key(int slot) {
+        return getInt(chunks, HEADER_SIZE + ((long)slot << 2));
+    }
+
+    void setKey(int slot, int key) {
+        putInt(chunks, HEADER_SIZE + ((long)slot << 2), key);
+    }
+
+    long value(int slot) {
+        return getLong(chunks, valuesOffset + ((long)slot << 3));
+    }
+
+    void setValue(int slot, long value) {
+        putLong(chunks, valuesOffset + ((long)slot << 3), value);
+    }
+
+    /**
+     * Maps a temporary file next to the map, holding the header of the map
+     * and an empty table of the given capacity. The current file stays mapped
+     * until <tt>releaseOldTable</tt>.
+     *
+     * @throws UncheckedIOException if the temporary file cannot be created or mapped
+     */
+    void allocate(int newCapacity) {
+        Path temporary = temporaryFile();
+        FileChannel newChannel = null;
+        MappedByteBuffer[] newChunks;
+
+        try {
+            newChannel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            newChunks = map(newChannel, fileSizeFor(newCapacity));
+        } catch (IOException e) {
+            discard(newChannel, temporary, e);
+            throw new UncheckedIOException(e);
+        }
+
+        for (int offset = 0; offset < HEADER_SIZE; offset += 4) {
+            putInt(newChunks, offset, getInt(chunks, offset));
+        }
+        putInt(newChunks, CAPACITY_OFFSET, newCapacity);
+
+        oldChannel = channel;
+        oldChunks = chunks;
+        oldValuesOffset = valuesOffset;
+        channel = newChannel;
+        chunks = newChunks;
+        valuesOffset = valuesOffsetFor(newCapacity);
+    }
+
+    int oldKey(int slot) {
+        return getInt(oldChunks, HEADER_SIZE + ((long)slot << 2));
+    }
+
+    long oldValue(int slot) {
+        return getLong(oldChunks, oldValuesOffset + ((long)slot << 3));
+    }
+
+    /**
+     * Forces the temporary file, atomically moves it over the map file and forces
+     * the directory, so that a crash leaves either the old or the new table. If the
+     * move fails, the map goes back to the old table, which is still intact.
+     *
+     * @throws UncheckedIOException if the new table cannot be made durable
+     */
+    void releaseOldTable() {
+        Path temporary = temporaryFile();
+
+        try {
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            discard(channel, temporary, e);
+            channel = oldChannel;
+            chunks = oldChunks;
+            valuesOffset = oldValuesOffset;
+            setCapacity(getInt(oldChunks, CAPACITY_OFFSET));
+            oldChannel = null;
+            oldChunks = null;
+            throw new UncheckedIOException(e);
+        }
+
+        FileChannel replaced = oldChannel;
+        oldChannel = null;
+        oldChunks = null;
+
+        try {
+            try {
+                forceDirectory(file);
+            } finally {
+                replaced.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the file the doubled table is written to before it replaces the map file.
+     */
+    private Path temporaryFile() {
+        return file.resolveSibling(file.getFileName() + ".resize");
+    }
+
+    /**
+     * Closes the channel of a temporary file, if any, and deletes the file,
+     * adding any failure to the given exception.
+     */
+    private static void discard(FileChannel temporaryChannel, Path temporary, IOException e) {
+        try {
+            if (temporaryChannel != null) {
+                temporaryChannel.close();
+            }
+            Files.deleteIfExists(temporary);
+        } catch (IOException suppressed) {
+            e.addSuppressed(suppressed);
+        }
+    }
+
+    /**
+     * Forces the directory holding the file, which makes a rename within it durable.
+     * Directories cannot be opened for reading on every platform; where they cannot,
+     * e.g. on Windows, the rename is durable once it returns and nothing is forced.
+     */
+    private static void forceDirectory(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory == null) {
+            return;
+        }
+
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (AccessDeniedException e) {
+            return;
+        }
+
+        try (FileChannel directoryChannel = channel) {
+            directoryChannel.force(true);
+        }
+    }
+
+    /**
+     * Maps the whole file of the given length chunk by chunk, extending the
+     * file if it is shorter.
+     */
+    private static MappedByteBuffer[] map(FileChannel channel, long fileSize) throws IOException {
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(int)((fileSize + CHUNK_MASK) >>> CHUNK_SHIFT)];
+        for (int i = 0; i < chunks.length; i++) {
+            long position = (long)i << CHUNK_SHIFT;
+            chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                    Math.min(fileSize - position, 1L << CHUNK_SHIFT));
+            chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return chunks;
+    }
+
+    private static int getInt(MappedByteBuffer[] chunks, long offset) {
+        return chunks[(int)(offset >>> CHUNK_SHIFT)].getInt((int)(offset & CHUNK_MASK));
+    }
+
+    private static void putInt(MappedByteBuffer[] chunks, long offset, int value) {
+        chunks[(int)(offset >>> CHUNK_SHIFT)].putInt((int)(offset & CHUNK_MASK), value);
+    }
+
+    private static long getLong(MappedByteBuffer[] chunks, long offset) {
+        return chunks[(int)(offset >>> CHUNK_SHIFT)].getLong((int)(offset & CHUNK_MASK));
+    }
+
+    private static void putLong(MappedByteBuffer[] chunks, long offset, long value) {
+        chunks[(int)(offset >>> CHUNK_SHIFT)].putLong((int)(offset & CHUNK_MASK), value);
+    }
+}
@@ -0,0 +1,208 @@
+package com.vodotiiets;
+
+import sun.misc.Unsafe;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+
+/**
+ * Open addressing Hash Map implementation of the <tt>HashMap</tt> interface whose
+ * table lives in native memory, outside of the Java heap.
+ *
+ * <p>The table has exactly the layout of {@link OpenAddressingHashMap} and shares its
+ * probing core: linear probing over parallel key and value arrays, key <tt>0</tt>
+ * marking an unused slot and having its own mapping in an extra slot at the end,
+ * power of two doubling and backward shift deletion. This class only provides the
+ * storage of the table. The arrays are a single block of native memory, so a table
+ * of several gigabytes costs the garbage collector one small object: it is never
+ * copied, marked or promoted.
+ *
+ * <p>The memory is not released by the garbage collector. Every map must be
+ * {@link #close() closed} once it is no longer needed, after which any further
+ * operation on it throws <tt>IllegalStateException</tt>. Like the heap map, this
+ * implementation is not synchronized; in particular it must not be closed while
+ * another thread uses it.
+ *
+ * @see OpenAddressingHashMap
+ *
+ * Created by Denys Vodotiiets.
+ */
+public class OffHeapOpenAddressingHashMap extends AbstractOpenAddressingHashMap implements Closeable {
+
+    private static final Unsafe UNSAFE;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe)field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The address of the native block holding the table, or <tt>0</tt>
+     * once the map is closed.
+     */
+    private long address;
+
+    /**
+     * The address of the keys of the table, <tt>capacity + 1</tt> ints.
+     * Slot is unused if its key is <tt>FREE_KEY</tt>, the last slot is
+     * reserved for <tt>FREE_KEY</tt>.
+     */
+    private long keys;
+
+    /**
+     * The address of the values of the table, <tt>capacity + 1</tt> longs
+     * parallel to keys.
+     */
+    private long values;
+
+    /**
+     * The address of the native block replaced by the last <tt>allocate</tt>,
+     * or <tt>0</tt> once it is released.
+     */
+    private long oldAddress;
+
+    /**
+     * The address of the keys of the replaced block.
+     */
+    private long oldKeys;
+
+    /**
+     * The address of the values of the replaced block.
+     */
+    private long oldValues;
+
+    /**
+     * Constructs an empty <tt>OffHeapOpenAddressingHashMap</tt> able to hold the
+     * specified number of mappings without growing, with the specified load factor,
+     * index function and hash mixer.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in range (0, 1]
+     * @param  indexFunction   the strategy of mapping hashes onto table slots
+     * @param  mixer           the mixer applied to keys
+     * @param  seed            the seed of the mixer, e.g. {@link HashMixer#randomSeed()}
+     * @throws IllegalArgumentException if the initial capacity is negative,
+     *         the load factor is out of range or the index function or mixer is null
+     * @throws OutOfMemoryError if the native memory cannot be allocated
+     */
+    public OffHeapOpenAddressingHashMap(int initialCapacity, float loadFactor, IndexFunction indexFunction,
+                                        HashMixer mixer, int seed) {
+        super(initialCapacity, loadFactor, indexFunction, mixer, seed);
+        allocate(capacity);
+    }
+
+    /**
+     * Constructs an empty <tt>OffHeapOpenAddressingHashMap</tt> able to hold the
+     * specified number of mappings without growing, with the specified load factor
+     * and power of two masking.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in range (0, 1]
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is out of range
+     * @throws OutOfMemoryError if the native memory cannot be allocated
+     */
+    public OffHeapOpenAddressingHashMap(int initialCapacity, float loadFactor) {
+        this(initialCapacity, loadFactor, IndexFunction.POWER_OF_TWO_MASK, HashMixer.SPREAD, 0);
+    }
+
+    /**
+     * Constructs an empty <tt>OffHeapOpenAddressingHashMap</tt> able to hold the
+     * specified number of mappings without growing, and with the default load
+     * factor (0.75).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     * @throws OutOfMemoryError if the native memory cannot be allocated
+     */
+    public OffHeapOpenAddressingHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty <tt>OffHeapOpenAddressingHashMap</tt> with the default
+     * initial capacity (16) and the default load factor (0.75).
+     */
+    public OffHeapOpenAddressingHashMap() {
+        allocate(capacity);
+    }
+
+    /**
+     * Releases the native memory of this map. Closing an already closed
+     * map has no effect.
+     */
+    public void close() {
+        if (address != 0) {
+            UNSAFE.freeMemory(address);
+            address = 0;
+            keys = 0;
+            values = 0;
+            size = 0;
+            containsFreeKey = false;
+        }
+    }
+
+    /**
+     * Throws if the native memory of this map has been released.
+     */
+    void ensureOpen() {
+        if (address == 0) {
+            throw new IllegalStateException("Map is closed!");
+        }
+    }
+
+    int key(int slot) {
+        return UNSAFE.getInt(keys + ((long)slot << 2));
+    }
+
+    void setKey(int slot, int key) {
+        UNSAFE.putInt(keys + ((long)slot << 2), key);
+    }
+
+    long value(int slot) {
+        return UNSAFE.getLong(values + ((long)slot << 3));
+    }
+
+    void setValue(int slot, long value) {
+        UNSAFE.putLong(values + ((long)slot << 3), value);
+    }
+
+    /**
+     * Allocates a zeroed block for a table of the given capacity, keeping the
+     * current block until <tt>releaseOldTable</tt>. The keys come first, padded
+     * so that the values are 8-byte aligned.
+     */
+    void allocate(int newCapacity) {
+        long keyBytes = ((long)(newCapacity + 1) * 4 + 7) & ~7L;
+        long bytes = keyBytes + (long)(newCapacity + 1) * 8;
+        long newAddress = UNSAFE.allocateMemory(bytes);
+
+        UNSAFE.setMemory(newAddress, bytes, (byte)0);
+        oldAddress = address;
+        oldKeys = keys;
+        oldValues = values;
+        address = newAddress;
+        keys = newAddress;
+        values = newAddress + keyBytes;
+    }
+
+    int oldKey(int slot) {
+        return UNSAFE.getInt(oldKeys + ((long)slot << 2));
+    }
+
+    long oldValue(int slot) {
+        return UNSAFE.getLong(oldValues + ((long)slot << 3));
+    }
+
+    void releaseOldTable() {
+        UNSAFE.freeMemory(oldAddress);
+        oldAddress = 0;
+        oldKeys = 0;
+        oldValues = 0;
+    }
+}
@@ -1,6 +1,16 @@
 package com.vodotiiets;
 
-import java.util.Objects;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Open addressing Hash Map based implementation of the <tt>HashMap</tt> interface.
@@ -17,102 +27,158 @@ import java.util.Objects;
  * either the target record is found, or an unused array slot is found, which indicates
  * that there is no such key in the table.
  *
+ * <p>Keys and values are kept in two parallel primitive arrays (12 bytes per slot),
+ * so neither <tt>put</tt> nor <tt>get</tt> allocates. An unused slot is marked by
+ * key <tt>0</tt>; the mapping for key <tt>0</tt> itself lives in an extra slot at the
+ * end of the table.
+ *
+ * <p>Keys are scrambled by the {@link HashMixer} chosen at construction (spreading
+ * of high bits by default), optionally with a per-instance seed. The home slot of
+ * the mixed hash is computed by the {@link IndexFunction} chosen at construction:
+ * power of two masking (the default) or fast range reduction for tables of arbitrary
+ * capacity. When the number of used slots exceeds the capacity multiplied by the
+ * load factor, the table is doubled and every entry is re-probed into the new one,
+ * which keeps probe sequences short.
+ *
+ * <p>Removal uses backward shift deletion: the entries following the removed one in
+ * its cluster are moved back into the gap where their probe sequence allows it, so
+ * the table never contains tombstones and probe lengths do not degrade under
+ * continuous insertion and removal. The table layout and the rest of the operations
+ * are shared with {@link OffHeapOpenAddressingHashMap}, which keeps the same table in
+ * native memory; the probing, growing and removal are overridden here on the arrays,
+ * so the single-key operations of the heap map never dispatch per slot.
+ *
+ * <p>The bulk operations <tt>getAll</tt> and <tt>putAll</tt> load the home slots of
+ * groups of keys before probing them, so that their cache misses overlap.
+ *
+ * <p>A map can be written to a channel as a snapshot of its table, and read back
+ * into a map with the identical slot layout without rehashing a single key.
+ *
+ * <p>The mappings are walked in the order of the table by <tt>forEach</tt> or by a
+ * reusable {@link IntLongCursor}, neither of which allocates per mapping. Both fail
+ * fast if the map is structurally modified during the walk. The streams of slots,
+ * keys and values split the table by ranges of slots for parallel scans.
+ *
+ * <p>With the system property <tt>com.vodotiiets.statistics=true</tt> maps record
+ * probe lengths and resizes, exposed with the occupancy by {@link #statistics()} and
+ * {@link #statisticsMXBean()}. The switch is a static final, so it costs nothing
+ * when off.
+ *
  * @see HashMap
  *
  * Created by Denys Vodotiiets.
  */
-public class OpenAddressingHashMap implements HashMap {
-
-    static class Node {
-        final int hash;
-        final int key;
-        long value;
+public class OpenAddressingHashMap extends AbstractOpenAddressingHashMap {
 
-        Node(int hash, int key, long value) {
-            this.hash = hash;
-            this.key = key;
-            this.value = value;
-        }
+    /**
+     * The number of keys whose home slots are loaded together by the
+     * bulk operations.
+     */
+    private static final int BATCH_SIZE = 16;
 
-        final int getKey() {
-            return key;
-        }
+    /**
+     * The magic number of snapshots, "OAHS".
+     */
+    private static final int SNAPSHOT_MAGIC = 0x5348414F;
 
-        final long getValue() {
-            return value;
-        }
+    /**
+     * The version of the snapshot format.
+     */
+    private static final int SNAPSHOT_VERSION = 1;
 
-        final void setValue(long newValue) {
-            value = newValue;
-        }
-    }
+    /**
+     * The keys of the table. Slot is unused if its key is <tt>FREE_KEY</tt>.
+     * Length is always <tt>capacity + 1</tt>, the last slot is reserved for
+     * <tt>FREE_KEY</tt>.
+     */
+    private int[] keys;
 
     /**
-     * The default initial capacity - MUST be a power of two.
+     * The values of the table, parallel to keys.
      */
-    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private long[] values;
 
+    /**
+     * The keys of the table replaced by the last <tt>allocate</tt>, or null
+     * once it is released.
+     */
+    private int[] oldKeys;
 
     /**
-     * Computes key.hashCode() and spreads (XORs) higher bits of hash
-     * to lower.
+     * The values of the table replaced by the last <tt>allocate</tt>.
      */
-    private static int hash(int key) {
-        int h;
-        return  (h = Objects.hashCode(key)) ^ (h >>> 16);
-    }
+    private long[] oldValues;
 
     /**
-     * The table, initialized on first use
+     * The counters of the statistics mode, or null if it is off.
      */
-    private Node[] table;
+    private final StatisticsRecorder statistics = StatisticsRecorder.ENABLED ? new StatisticsRecorder() : null;
 
     /**
-     * The capacity of map
+     * Constructs an empty <tt>OpenAddressingHashMap</tt> able to hold the specified
+     * number of mappings without growing, with the specified load factor, index
+     * function and hash mixer.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in range (0, 1]
+     * @param  indexFunction   the strategy of mapping hashes onto table slots
+     * @param  mixer           the mixer applied to keys
+     * @param  seed            the seed of the mixer, e.g. {@link HashMixer#randomSeed()}
+     * @throws IllegalArgumentException if the initial capacity is negative,
+     *         the load factor is out of range or the index function or mixer is null
      */
-    private int capacity;
+    public OpenAddressingHashMap(int initialCapacity, float loadFactor, IndexFunction indexFunction,
+                                 HashMixer mixer, int seed) {
+        super(initialCapacity, loadFactor, indexFunction, mixer, seed);
+        allocate(capacity);
+    }
 
     /**
-     * The number of key-value mappings contained in this map.
+     * Constructs an empty <tt>OpenAddressingHashMap</tt> able to hold the specified
+     * number of mappings without growing, with the specified load factor and
+     * index function.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in range (0, 1]
+     * @param  indexFunction   the strategy of mapping hashes onto table slots
+     * @throws IllegalArgumentException if the initial capacity is negative,
+     *         the load factor is out of range or the index function is null
      */
-    private int size;
+    public OpenAddressingHashMap(int initialCapacity, float loadFactor, IndexFunction indexFunction) {
+        this(initialCapacity, loadFactor, indexFunction, HashMixer.SPREAD, 0);
+    }
 
     /**
-     * Constructs an empty <tt>OpenAddressingHashMap</tt> with the specified initial
-     * capacity.
+     * Constructs an empty <tt>OpenAddressingHashMap</tt> able to hold the specified
+     * number of mappings without growing, with the specified load factor and
+     * power of two masking.
      *
      * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in range (0, 1]
      * @throws IllegalArgumentException if the initial capacity is negative
-     *         or the load factor is nonpositive
+     *         or the load factor is out of range
      */
-    public OpenAddressingHashMap(int initialCapacity) {
-        if (initialCapacity < 0) {
-            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
-        }
-
-        if (initialCapacity >= Integer.MAX_VALUE) {
-            initialCapacity = Integer.MAX_VALUE - 1;
-        }
-
-        capacity = Math.max(3 * initialCapacity / 2, initialCapacity) + 1;
-        table = new Node[capacity];
+    public OpenAddressingHashMap(int initialCapacity, float loadFactor) {
+        this(initialCapacity, loadFactor, IndexFunction.POWER_OF_TWO_MASK);
     }
 
     /**
-     * Constructs an empty <tt>OpenAddressingHashMap</tt> with the default initial capacity.
+     * Constructs an empty <tt>OpenAddressingHashMap</tt> able to hold the specified
+     * number of mappings without growing, and with the default load factor (0.75).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
      */
-    public OpenAddressingHashMap() {
-        capacity = DEFAULT_INITIAL_CAPACITY;
-        table = new Node[capacity];
+    public OpenAddressingHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
     }
 
     /**
-     * Returns the number of key-value mappings in this map.
-     *
-     * @return the number of key-value mappings in this map
+     * Constructs an empty <tt>OpenAddressingHashMap</tt> with the default initial capacity
+     * (16) and the default load factor (0.75).
      */
-    public int size() {
-        return size;
+    public OpenAddressingHashMap() {
+        allocate(capacity);
     }
 
     /**
@@ -126,79 +192,706 @@ public class OpenAddressingHashMap implements HashMap {
      * @throws IllegalStateException if map is full
      */
     public boolean put(int key, long value) {
-        if (size == capacity) {
-            throw new RuntimeException("There is no place for new data");
+        int slot = probeForPut(key);
+        if (slot >= 0) {
+            values[slot] = value;
+        } else {
+            insertAt(~slot, key, value);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped
+     * @throws IllegalStateException if map is empty or map has no such key
+     */
+    public long get(int key) {
+        if (size == 0) {
+            throw new IllegalStateException("Map is empty!");
+        }
+
+        int slot = probeForGet(key);
+        if (slot < 0) {
+            throw new IllegalStateException("No such key!");
         }
+        return values[slot];
+    }
 
-        int hash = hash(key);
-        Node currentNode;
-        int currentIndex, startIndex;
-        currentIndex = startIndex = (capacity - 1) & hash;
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given value if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if there is no mapping
+     * @return the value to which the specified key is mapped, or
+     *         <tt>defaultValue</tt> if this map contains no mapping for the key
+     */
+    public long getOrDefault(int key, long defaultValue) {
+        int slot = probeForGet(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
 
-        do {
-            if ((currentNode = table[currentIndex]) == null) {
-                table[currentIndex] = newNode(hash, key, value);
-                size++;
-                return true;
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the specified key.
+     *
+     * @param key the key whose presence is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the key
+     */
+    public boolean containsKey(int key) {
+        return probeForGet(key) >= 0;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return <tt>true</tt> if the removal occurred
+     */
+    public boolean remove(int key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+
+        if (slot == capacity) {
+            containsFreeKey = false;
+            values[capacity] = NO_VALUE;
+        } else {
+            closeGap(slot);
+        }
+        modCount++;
+        size--;
+        return true;
+    }
+
+    /**
+     * Associates each key with the value at the same index, as {@link #put} would.
+     * The keys are handled in groups: the home slots of a whole group are computed
+     * and loaded first, so that their cache misses overlap, and then the group is
+     * probed. The table is grown up front for all keys.
+     *
+     * @param keys the keys
+     * @param values the values, at least as many as keys
+     * @throws IllegalArgumentException if an array is null or values is too short
+     * @throws IllegalStateException if map is full
+     */
+    public void putAll(int[] keys, long[] values) {
+        if (keys == null || values == null || values.length < keys.length) {
+            throw new IllegalArgumentException("Illegal arrays: " + keys + ", " + values);
+        }
+
+        while (capacity < MAXIMUM_CAPACITY && (long)size + keys.length > threshold) {
+            resize();
+        }
+
+        int[] homes = new int[BATCH_SIZE];
+        int[] firstKeys = new int[BATCH_SIZE];
+
+        for (int start = 0; start < keys.length; start += BATCH_SIZE) {
+            int end = Math.min(start + BATCH_SIZE, keys.length);
+            int[] table = this.keys;
+
+            for (int i = start; i < end; i++) {
+                homes[i - start] = indexFor(hash(keys[i]));
+            }
+            for (int i = start; i < end; i++) {
+                firstKeys[i - start] = table[homes[i - start]];
             }
 
-            if (currentNode.getKey() == key) {
-                currentNode.setValue(value);
-                return true;
+            int groupCapacity = capacity;
+            for (int i = start; i < end; i++) {
+                if (keys[i] == FREE_KEY || capacity != groupCapacity) {
+                    put(keys[i], values[i]);
+                } else if (firstKeys[i - start] == keys[i]) {
+                    this.values[homes[i - start]] = values[i];
+                } else {
+                    int slot = findFrom(keys[i], homes[i - start]);
+                    if (slot >= 0) {
+                        this.values[slot] = values[i];
+                    } else {
+                        insertAt(~slot, keys[i], values[i]);
+                    }
+                }
             }
+        }
+    }
+
+    /**
+     * Looks up every key at once. The value of <tt>keys[i]</tt> is stored into
+     * <tt>values[i]</tt>, or <tt>0</tt> if the map has no such key, in which case
+     * bit <tt>i % 64</tt> of <tt>missing[i / 64]</tt> is set; the other bits are
+     * cleared. The keys are handled in groups: the home slots of a whole group are
+     * computed and loaded first, so that their cache misses overlap, and then the
+     * group is probed.
+     *
+     * @param keys the keys
+     * @param values the values found, at least as many as keys
+     * @param missing the bitmap of missing keys, at least <tt>(keys.length + 63) / 64</tt> words
+     * @return the number of keys found
+     * @throws IllegalArgumentException if an array is null or too short
+     */
+    public int getAll(int[] keys, long[] values, long[] missing) {
+        if (keys == null || values == null || missing == null
+                || values.length < keys.length || missing.length < (keys.length + 63) >>> 6) {
+            throw new IllegalArgumentException("Illegal arrays: " + keys + ", " + values + ", " + missing);
+        }
 
-            currentIndex++;
+        int[] table = this.keys;
+        long[] tableValues = this.values;
+        int[] homes = new int[BATCH_SIZE];
+        int[] firstKeys = new int[BATCH_SIZE];
+        long[] firstValues = new long[BATCH_SIZE];
+        int found = 0;
 
-            if (currentIndex == capacity) {
-                currentIndex = 0;
+        Arrays.fill(missing, 0, (keys.length + 63) >>> 6, 0L);
+
+        for (int start = 0; start < keys.length; start += BATCH_SIZE) {
+            int end = Math.min(start + BATCH_SIZE, keys.length);
+
+            for (int i = start; i < end; i++) {
+                homes[i - start] = indexFor(hash(keys[i]));
+            }
+            for (int i = start; i < end; i++) {
+                int home = homes[i - start];
+                firstKeys[i - start] = table[home];
+                firstValues[i - start] = tableValues[home];
             }
-        } while (currentIndex != startIndex);
 
-        return false;
+            for (int i = start; i < end; i++) {
+                int key = keys[i];
+                int currentKey = firstKeys[i - start];
+                int currentIndex = homes[i - start];
+
+                if (key == FREE_KEY) {
+                    if (containsFreeKey) {
+                        values[i] = tableValues[capacity];
+                        found++;
+                    } else {
+                        values[i] = 0;
+                        missing[i >>> 6] |= 1L << i;
+                    }
+                    continue;
+                }
+
+                if (currentKey == key) {
+                    values[i] = firstValues[i - start];
+                    found++;
+                    continue;
+                }
+
+                while (currentKey != FREE_KEY && currentKey != key) {
+                    if (++currentIndex == capacity) {
+                        currentIndex = 0;
+                    }
+                    currentKey = table[currentIndex];
+                }
+
+                if (currentKey == key) {
+                    values[i] = tableValues[currentIndex];
+                    found++;
+                } else {
+                    values[i] = 0;
+                    missing[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+        return found;
     }
 
     /**
-     * Create a node
+     * Returns a stream of the slots holding the mappings of this map, whose keys
+     * and values are read by {@link #keyAt} and {@link #valueAt}. The stream is
+     * split by ranges of slots, so a parallel stream scans the table on all cores
+     * without boxing. It fails fast if the map is structurally modified.
+     *
+     * @param parallel whether the stream is parallel
+     * @return a stream of the used slots, in the order of the table
      */
-    private Node newNode(int hash, int key, long value) {
-        return new Node(hash, key, value);
+    public IntStream slotStream(boolean parallel) {
+        return StreamSupport.intStream(new SlotSpliterator(0, capacity + 1, size, modCount), parallel);
     }
 
     /**
-     * Returns the value to which the specified key is mapped.
+     * Returns a stream of the keys of this map, as {@link #slotStream} does.
      *
-     * @param key the key whose associated value is to be returned
-     * @return the value to which the specified key is mapped
-     * @throws IllegalStateException if map is empty or map has no such key
+     * @param parallel whether the stream is parallel
+     * @return a stream of the keys, in the order of the table
      */
-    public long get(int key) {
+    public IntStream keyStream(boolean parallel) {
+        return slotStream(parallel).map(this::keyAt);
+    }
 
-        if (size == 0) {
-            throw new IllegalStateException("Map is empty!");
+    /**
+     * Returns a stream of the values of this map, as {@link #slotStream} does.
+     *
+     * @param parallel whether the stream is parallel
+     * @return a stream of the values, in the order of the table
+     */
+    public LongStream valueStream(boolean parallel) {
+        return slotStream(parallel).mapToLong(this::valueAt);
+    }
+
+    /**
+     * Returns an immutable copy of this map backed by a minimal perfect hash,
+     * whose lookups check exactly one slot. Later changes to this map are not
+     * reflected in the copy.
+     *
+     * @return the frozen copy of this map
+     */
+    public FrozenIntLongMap freeze() {
+        return FrozenIntLongMap.copyOf(this);
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this map. The size, capacity, load
+     * factor and longest cluster are always available, the latter at the cost of a
+     * scan of the table; probe lengths and resizes of the single-key operations
+     * are only recorded in the statistics mode.
+     *
+     * @return a snapshot of the statistics
+     */
+    public MapStatistics statistics() {
+        return new MapStatistics(size, capacity, maxClusterLength(), statistics);
+    }
+
+    /**
+     * Returns an MXBean which reads the statistics of this map live, to be
+     * registered with an <tt>MBeanServer</tt>.
+     *
+     * @return the statistics MXBean of this map
+     */
+    public MapStatisticsMXBean statisticsMXBean() {
+        return new StatisticsBean(this::size, () -> capacity, this::maxClusterLength, statistics);
+    }
+
+    /**
+     * Writes a snapshot of this map to the channel: a header with the parameters
+     * of the map followed by its table in the given format. All numbers are
+     * little-endian. The channel is neither flushed nor closed.
+     *
+     * @param channel the channel to write to
+     * @param format the encoding of the table
+     * @throws IllegalArgumentException if the channel or format is null
+     * @throws IOException if writing to the channel fails
+     */
+    public void writeSnapshot(WritableByteChannel channel, SnapshotFormat format) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Illegal channel: " + channel);
         }
 
-        int hash = hash(key);
-        Node currentNode;
-        int currentIndex, startIndex;
-        currentIndex = startIndex = (capacity - 1) & hash;
+        if (format == null) {
+            throw new IllegalArgumentException("Illegal snapshot format: " + format);
+        }
 
-        do {
-            if ((currentNode = table[currentIndex]) == null) {
-                break;
+        SnapshotOutput out = new SnapshotOutput(channel);
+        out.putInt(SNAPSHOT_MAGIC);
+        out.putInt(SNAPSHOT_VERSION);
+        out.putInt(format.ordinal());
+        out.putInt((fastRange ? IndexFunction.FAST_RANGE : IndexFunction.POWER_OF_TWO_MASK).ordinal());
+        out.putInt(mixer.ordinal());
+        out.putInt(seed);
+        out.putInt(Float.floatToIntBits(loadFactor));
+        out.putInt(capacity);
+        out.putInt(size);
+        out.putInt(containsFreeKey ? 1 : 0);
+        out.putLong(values[capacity]);
+
+        if (format == SnapshotFormat.RAW) {
+            out.putInts(keys, 0, capacity);
+            out.putLongs(values, 0, capacity);
+        } else {
+            int previousIndex = -1;
+            for (int i = 0; i < capacity; i++) {
+                if (keys[i] != FREE_KEY) {
+                    out.putVarLong(i - previousIndex);
+                    out.putInt(keys[i]);
+                    out.putVarLong((values[i] << 1) ^ (values[i] >> 63));
+                    previousIndex = i;
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a map from a snapshot written by {@link #writeSnapshot}. The table is
+     * restored slot by slot, so no key is rehashed. The reader may consume bytes
+     * of the channel past the end of the snapshot.
+     *
+     * @param channel the channel to read from
+     * @return the map
+     * @throws IllegalArgumentException if the channel is null
+     * @throws StreamCorruptedException if the data is not a valid snapshot
+     * @throws IOException if reading from the channel fails
+     */
+    public static OpenAddressingHashMap readSnapshot(ReadableByteChannel channel) throws IOException {
+        if (channel == null) {
+            throw new IllegalArgumentException("Illegal channel: " + channel);
+        }
+
+        SnapshotInput in = new SnapshotInput(channel);
+        if (in.getInt() != SNAPSHOT_MAGIC) {
+            throw new StreamCorruptedException("Not a snapshot");
+        }
+
+        int version = in.getInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new StreamCorruptedException("Unsupported snapshot version: " + version);
+        }
+
+        int format = in.getInt();
+        int indexFunction = in.getInt();
+        int mixer = in.getInt();
+        int seed = in.getInt();
+        float loadFactor = Float.intBitsToFloat(in.getInt());
+        int capacity = in.getInt();
+        int size = in.getInt();
+        boolean containsFreeKey = in.getInt() != 0;
+        long freeValue = in.getLong();
+
+        if (format < 0 || format >= SnapshotFormat.values().length
+                || indexFunction < 0 || indexFunction >= IndexFunction.values().length
+                || mixer < 0 || mixer >= HashMixer.values().length
+                || !(loadFactor > 0 && loadFactor <= 1)
+                || capacity < 2 || capacity > MAXIMUM_CAPACITY
+                || (indexFunction == IndexFunction.POWER_OF_TWO_MASK.ordinal() && (capacity & (capacity - 1)) != 0)
+                || size < 0 || size > capacity) {
+            throw new StreamCorruptedException("Illegal snapshot header");
+        }
+
+        OpenAddressingHashMap map = new OpenAddressingHashMap(0, loadFactor,
+                IndexFunction.values()[indexFunction], HashMixer.values()[mixer], seed);
+        map.allocate(capacity);
+        map.releaseOldTable();
+        map.setCapacity(capacity);
+        int[] keys = map.keys;
+        long[] values = map.values;
+        int used = 0;
+
+        if (format == SnapshotFormat.RAW.ordinal()) {
+            in.getInts(keys, 0, capacity);
+            in.getLongs(values, 0, capacity);
+            for (int i = 0; i < capacity; i++) {
+                if (keys[i] != FREE_KEY) {
+                    used++;
+                }
+            }
+        } else {
+            int index = -1;
+            for (used = 0; used < size - (containsFreeKey ? 1 : 0); used++) {
+                long distance = in.getVarLong();
+                if (distance <= 0 || distance >= capacity - index) {
+                    throw new StreamCorruptedException("Illegal slot distance: " + distance);
+                }
+                index += (int)distance;
+                if ((keys[index] = in.getInt()) == FREE_KEY) {
+                    throw new StreamCorruptedException("Illegal key: " + FREE_KEY);
+                }
+                long value = in.getVarLong();
+                values[index] = (value >>> 1) ^ -(value & 1);
+            }
+        }
+
+        if (used != size - (containsFreeKey ? 1 : 0) || used > map.threshold) {
+            throw new StreamCorruptedException("Illegal snapshot size: " + size);
+        }
+
+        values[capacity] = freeValue;
+        map.containsFreeKey = containsFreeKey;
+        map.size = size;
+        return map;
+    }
+
+    /**
+     * Spliterator over the used slots of a range of the table, where slot
+     * <tt>capacity</tt> is the extra slot. Splitting halves the range and its
+     * estimate, so only the unsplit spliterator knows its exact size.
+     */
+    private final class SlotSpliterator implements Spliterator.OfInt {
+        private int index;
+        private final int fence;
+        private long estimate;
+        private boolean sized = true;
+        private final int expectedModCount;
+
+        SlotSpliterator(int origin, int fence, long estimate, int expectedModCount) {
+            this.index = origin;
+            this.fence = fence;
+            this.estimate = estimate;
+            this.expectedModCount = expectedModCount;
+        }
+
+        public SlotSpliterator trySplit() {
+            int middle = (index + fence) >>> 1;
+            if (middle <= index) {
+                return null;
+            }
+
+            sized = false;
+            SlotSpliterator prefix = new SlotSpliterator(index, middle, estimate >>>= 1, expectedModCount);
+            prefix.sized = false;
+            index = middle;
+            return prefix;
+        }
+
+        public boolean tryAdvance(IntConsumer action) {
+            int[] tab = keys;
+
+            while (index < fence) {
+                int slot = index++;
+                if (slot < capacity ? tab[slot] != FREE_KEY : containsFreeKey) {
+                    if (estimate > 0) {
+                        estimate--;
+                    }
+                    action.accept(slot);
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void forEachRemaining(IntConsumer action) {
+            int[] tab = keys;
+            int end = Math.min(fence, capacity);
+
+            for (int slot = index; slot < end; slot++) {
+                if (tab[slot] != FREE_KEY) {
+                    action.accept(slot);
+                }
+            }
+
+            if (end < fence && containsFreeKey) {
+                action.accept(capacity);
+            }
+
+            index = fence;
+            estimate = 0;
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        public long estimateSize() {
+            return estimate;
+        }
+
+        public int characteristics() {
+            return (sized ? Spliterator.SIZED : 0) | Spliterator.ORDERED
+                    | Spliterator.DISTINCT | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * Implements probe for the put operations, recording its length in the
+     * statistics mode.
+     */
+    int probeForPut(int key) {
+        int slot = find(key);
+        if (StatisticsRecorder.ENABLED) {
+            recordProbe(slot >= 0 ? StatisticsRecorder.PUT_HIT : StatisticsRecorder.PUT_MISS, key, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Implements probe for the lookups, recording its length in the
+     * statistics mode.
+     */
+    int probeForGet(int key) {
+        int slot = find(key);
+        if (StatisticsRecorder.ENABLED) {
+            recordProbe(slot >= 0 ? StatisticsRecorder.GET_HIT : StatisticsRecorder.GET_MISS, key, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Implements probe on the arrays of the table. The shared core reads
+     * slots through the accessors, which turn megamorphic once the off-heap
+     * and mapped maps are loaded too, so the heap map probes by itself.
+     */
+    private int find(int key) {
+        if (key == FREE_KEY) {
+            return containsFreeKey ? capacity : ~capacity;
+        }
+        return findFrom(key, indexFor(hash(key)));
+    }
+
+    /**
+     * Implements probe of a key other than <tt>FREE_KEY</tt> on the arrays,
+     * starting at the given slot.
+     */
+    private int findFrom(int key, int currentIndex) {
+        int[] keys = this.keys;
+        int currentKey;
+
+        while ((currentKey = keys[currentIndex]) != FREE_KEY) {
+            if (currentKey == key) {
+                return currentIndex;
             }
 
-            if (currentNode.getKey() == key) {
-                return currentNode.getValue();
+            if (++currentIndex == capacity) {
+                currentIndex = 0;
             }
+        }
 
-            currentIndex++;
+        return ~currentIndex;
+    }
 
-            if (currentIndex == capacity) {
+    /**
+     * Implements backward shift deletion on the arrays: closes the gap left
+     * by a removed entry as <tt>shiftKeys</tt> does.
+     */
+    private void closeGap(int gap) {
+        int[] keys = this.keys;
+        long[] values = this.values;
+        int currentKey;
+        int homeIndex;
+        int currentIndex = gap;
+
+        while (true) {
+            if (++currentIndex == capacity) {
                 currentIndex = 0;
             }
-        } while (currentIndex != startIndex);
 
-        throw new IllegalStateException("No such key!");
+            if ((currentKey = keys[currentIndex]) == FREE_KEY) {
+                break;
+            }
+
+            homeIndex = indexFor(hash(currentKey));
+            if (gap <= currentIndex ? (homeIndex <= gap || homeIndex > currentIndex)
+                    : (homeIndex <= gap && homeIndex > currentIndex)) {
+                keys[gap] = currentKey;
+                values[gap] = values[currentIndex];
+                gap = currentIndex;
+            }
+        }
+
+        keys[gap] = FREE_KEY;
+        values[gap] = NO_VALUE;
+    }
+
+    /**
+     * Records the distance from the home slot of the key to the slot
+     * where its probe ended.
+     */
+    private void recordProbe(int operation, int key, int slot) {
+        int end = slot >= 0 ? slot : ~slot;
+        int length = 0;
+
+        if (key != FREE_KEY) {
+            int home = indexFor(hash(key));
+            length = end >= home ? end - home : end + capacity - home;
+        }
+        statistics.recordProbe(operation, length);
+    }
+
+    /**
+     * Returns the length of the longest run of used slots, scanning the
+     * table from an unused slot so that a run which wraps around is
+     * measured whole.
+     */
+    private int maxClusterLength() {
+        int start = 0;
+        while (start < capacity && keys[start] != FREE_KEY) {
+            start++;
+        }
+        if (start == capacity) {
+            return capacity;
+        }
+
+        int length = 0, maxLength = 0;
+        for (int i = start + 1; i <= start + capacity; i++) {
+            if (keys[i < capacity ? i : i - capacity] != FREE_KEY) {
+                maxLength = Math.max(maxLength, ++length);
+            } else {
+                length = 0;
+            }
+        }
+        return maxLength;
+    }
+
+    int key(int slot) {
+        return keys[slot];
+    }
+
+    void setKey(int slot, int key) {
+        keys[slot] = key;
+    }
+
+    long value(int slot) {
+        return values[slot];
+    }
+
+    void setValue(int slot, long value) {
+        values[slot] = value;
+    }
+
+    /**
+     * Allocates the arrays of a table of the given capacity, keeping the
+     * current ones until <tt>releaseOldTable</tt>.
+     */
+    void allocate(int newCapacity) {
+        oldKeys = keys;
+        oldValues = values;
+        keys = new int[newCapacity + 1];
+        values = new long[newCapacity + 1];
+    }
+
+    int oldKey(int slot) {
+        return oldKeys[slot];
+    }
+
+    long oldValue(int slot) {
+        return oldValues[slot];
+    }
+
+    void releaseOldTable() {
+        oldKeys = null;
+        oldValues = null;
+    }
+
+    /**
+     * Implements resize on the arrays, recording its duration in the
+     * statistics mode.
+     */
+    void resize() {
+        if (capacity >= MAXIMUM_CAPACITY) {
+            throw new IllegalStateException("There is no place for new data");
+        }
+
+        long start = StatisticsRecorder.ENABLED ? System.nanoTime() : 0;
+        int oldCapacity = capacity;
+        int newCapacity = oldCapacity > MAXIMUM_CAPACITY >> 1 ? MAXIMUM_CAPACITY : oldCapacity << 1;
+
+        allocate(newCapacity);
+        setCapacity(newCapacity);
+
+        int[] oldKeys = this.oldKeys;
+        long[] oldValues = this.oldValues;
+        int[] keys = this.keys;
+        long[] values = this.values;
+        values[newCapacity] = oldValues[oldCapacity];
+
+        for (int j = 0; j < oldCapacity; ++j) {
+            int currentKey;
+            if ((currentKey = oldKeys[j]) != FREE_KEY) {
+                int slot = ~findFrom(currentKey, indexFor(hash(currentKey)));
+                keys[slot] = currentKey;
+                values[slot] = oldValues[j];
+            }
+        }
+
+        releaseOldTable();
+        if (StatisticsRecorder.ENABLED) {
+            statistics.recordResize(System.nanoTime() - start);
+        }
     }
 
 }
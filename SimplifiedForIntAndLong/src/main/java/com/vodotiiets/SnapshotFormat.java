@@ -0,0 +1,23 @@
+package com.vodotiiets;
+
+/**
+ * Encodings of the table in a snapshot written by
+ * {@link OpenAddressingHashMap#writeSnapshot}.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public enum SnapshotFormat {
+
+    /**
+     * The raw image of the table, every slot used or not, 12 bytes per slot.
+     * Written and read by bulk copies, so it moves at disk bandwidth.
+     */
+    RAW,
+
+    /**
+     * The used slots only, each as the varint distance from the previous used
+     * slot, the key and the zigzag varint value. Smaller for sparse tables
+     * and small values.
+     */
+    SPARSE
+}
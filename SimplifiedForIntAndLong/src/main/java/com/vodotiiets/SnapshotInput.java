@@ -0,0 +1,95 @@
+package com.vodotiiets;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Buffered little-endian reader of snapshots from a channel. May read
+ * ahead of the data it returns.
+ *
+ * Created by Denys Vodotiiets.
+ */
+final class SnapshotInput {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    SnapshotInput(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.limit(0);
+    }
+
+    int getInt() throws IOException {
+        ensure(4);
+        return buffer.getInt();
+    }
+
+    long getLong() throws IOException {
+        ensure(8);
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint.
+     */
+    long getVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            ensure(1);
+            byte b = buffer.get();
+            value |= (long)(b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed varint");
+    }
+
+    void getInts(int[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            int count = Math.min(length, buffer.remaining() >> 2);
+            if (count == 0) {
+                ensure(4);
+                continue;
+            }
+            buffer.asIntBuffer().get(values, offset, count);
+            buffer.position(buffer.position() + (count << 2));
+            offset += count;
+            length -= count;
+        }
+    }
+
+    void getLongs(long[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            int count = Math.min(length, buffer.remaining() >> 3);
+            if (count == 0) {
+                ensure(8);
+                continue;
+            }
+            buffer.asLongBuffer().get(values, offset, count);
+            buffer.position(buffer.position() + (count << 3));
+            offset += count;
+            length -= count;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of snapshot");
+            }
+        }
+        buffer.flip();
+    }
+}
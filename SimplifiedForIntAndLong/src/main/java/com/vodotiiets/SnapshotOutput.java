@@ -0,0 +1,94 @@
+package com.vodotiiets;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Buffered little-endian writer of snapshots to a channel.
+ *
+ * Created by Denys Vodotiiets.
+ */
+final class SnapshotOutput {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    SnapshotOutput(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    void putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    void putLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes an unsigned LEB128 varint, 1 to 10 bytes.
+     */
+    void putVarLong(long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte)value);
+    }
+
+    void putInts(int[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            int count = Math.min(length, buffer.remaining() >> 2);
+            if (count == 0) {
+                drain();
+                continue;
+            }
+            buffer.asIntBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + (count << 2));
+            offset += count;
+            length -= count;
+        }
+    }
+
+    void putLongs(long[] values, int offset, int length) throws IOException {
+        while (length > 0) {
+            int count = Math.min(length, buffer.remaining() >> 3);
+            if (count == 0) {
+                drain();
+                continue;
+            }
+            buffer.asLongBuffer().put(values, offset, count);
+            buffer.position(buffer.position() + (count << 3));
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Writes out everything buffered so far.
+     */
+    void flush() throws IOException {
+        drain();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,65 @@
+package com.vodotiiets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ConcurrentModificationException;
+
+/**
+ * Tests of the operations the <tt>AbstractOpenAddressingHashMap</tt> adds to the
+ * <tt>HashMap</tt> contract, run by the test of every storage of its table.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public abstract class AbstractOpenAddressingHashMapTest extends HashMapTest {
+
+    private final int SIZE = 100;
+
+    abstract AbstractOpenAddressingHashMap newMap(int initialCapacity) throws IOException;
+
+    @Test()
+    public void foundSlotShouldGiveAccessToMapping() throws IOException {
+        AbstractOpenAddressingHashMap map = newMap(SIZE);
+
+        for (int i = 0; i < SIZE; i++) {
+            map.put(i * 31, (long)i);
+        }
+
+        for (int i = 0; i < SIZE; i++) {
+            int slot = map.findSlot(i * 31);
+            Assert.assertEquals(i * 31, map.keyAt(slot));
+            Assert.assertEquals((long)i, map.valueAt(slot));
+            map.setValueAt(slot, -i);
+            Assert.assertEquals((long)-i, map.get(i * 31));
+        }
+        Assert.assertEquals(-1, map.findSlot(-31));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfSlotIsIllegal() throws IOException {
+        AbstractOpenAddressingHashMap map = newMap(SIZE);
+        map.valueAt(map.findSlot(1));
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void throwsConcurrentModificationExceptionIfMapIsModifiedDuringIteration() throws IOException {
+        AbstractOpenAddressingHashMap map = newMap(SIZE);
+        map.put(1, 2);
+        map.put(2, 3);
+
+        IntLongCursor cursor = map.cursor();
+        cursor.advance();
+        map.put(3, 4);
+        cursor.advance();
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void throwsConcurrentModificationExceptionIfActionModifiesMap() throws IOException {
+        AbstractOpenAddressingHashMap map = newMap(SIZE);
+        map.put(1, 2);
+        map.put(2, 3);
+        map.forEach((key, value) -> map.remove(key));
+    }
+
+}
@@ -0,0 +1,225 @@
+package com.vodotiiets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Created by Denys Vodotiiets.
+ */
+public class ConcurrentOpenAddressingHashMapTest extends HashMapTest {
+
+    private ConcurrentOpenAddressingHashMap map;
+    private final int SIZE = 100;
+    private final int THREADS = 4;
+
+    ConcurrentOpenAddressingHashMap newMap(int initialCapacity) {
+        return new ConcurrentOpenAddressingHashMap(initialCapacity);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfCapacityIsNegative() {
+        map = new ConcurrentOpenAddressingHashMap(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfConcurrencyLevelIsNotPositive() {
+        map = new ConcurrentOpenAddressingHashMap(16, 0.75f, 0);
+    }
+
+    @Test()
+    public void sizeShouldBeZero() {
+        map = new ConcurrentOpenAddressingHashMap();
+        Assert.assertTrue(map.size() == 0);
+    }
+
+    @Test()
+    public void secondNodeShouldBeAddedButSizeStillOne() {
+        map = new ConcurrentOpenAddressingHashMap();
+        map.put(1, 2);
+        Assert.assertTrue(map.put(1, 3) && map.size() == 1);
+        Assert.assertEquals(3, map.get(1));
+    }
+
+    @Test()
+    public void allValuesShouldBeReceived() {
+        map = new ConcurrentOpenAddressingHashMap(1, 0.9f, 2);
+
+        for (int i = -SIZE * 50; i < SIZE * 50; i++) {
+            map.put(i, (long)i);
+        }
+
+        Assert.assertTrue(map.size() == SIZE * 100);
+        for (int i = -SIZE * 50; i < SIZE * 50; i++) {
+            Assert.assertEquals((long)i, map.get(i));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsIllegalStateExceptionIfTryGetWhenMapHasNoSuchKey() {
+        map = new ConcurrentOpenAddressingHashMap();
+        map.put(1, 2);
+        map.get(2);
+    }
+
+    @Test()
+    public void lookupsShouldFindKeyMappedToMissingValue() {
+        map = new ConcurrentOpenAddressingHashMap();
+        map.put(1, Long.MIN_VALUE);
+
+        Assert.assertEquals(Long.MIN_VALUE, map.get(1));
+        Assert.assertEquals(Long.MIN_VALUE, map.getOrDefault(1, -1));
+        Assert.assertTrue(map.containsKey(1));
+    }
+
+    @Test()
+    public void removedNodeShouldNotBeReceived() {
+        map = new ConcurrentOpenAddressingHashMap();
+        map.put(1, 2);
+        map.put(0, 3);
+        Assert.assertTrue(map.remove(1) && map.remove(0) && map.size() == 0);
+        Assert.assertFalse(map.remove(1) || map.remove(0));
+    }
+
+    /**
+     * Writers put and remove their own churning keys, which moves the stable
+     * keys back and forth and resizes segments. Readers must never miss a stable
+     * key, nor see a value which was never written for it.
+     */
+    @Test()
+    public void stableKeysShouldStayVisibleUnderConcurrentChurn() throws Exception {
+        map = new ConcurrentOpenAddressingHashMap(1, 0.9f, 2);
+        for (int key = 0; key < SIZE; key++) {
+            map.put(key, key * 3L);
+        }
+
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS * 2);
+        List<Future<Void>> writers = new ArrayList<>();
+        List<Future<Void>> readers = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int base = (t + 1) * SIZE * 1000;
+                writers.add(executor.submit(new Callable<Void>() {
+                    public Void call() {
+                        for (int i = 0; i < SIZE * 1000; i++) {
+                            map.put(base + i, i);
+                            map.put(i % SIZE, (i % SIZE) * 3L);
+                            if (i >= SIZE) {
+                                Assert.assertTrue(map.remove(base + i - SIZE));
+                            }
+                        }
+                        return null;
+                    }
+                }));
+                readers.add(executor.submit(new Callable<Void>() {
+                    public Void call() {
+                        while (!stop.get()) {
+                            for (int key = 0; key < SIZE; key++) {
+                                Assert.assertEquals(key * 3L, map.get(key));
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> writer : writers) {
+                writer.get();
+            }
+            stop.set(true);
+            for (Future<Void> reader : readers) {
+                reader.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals(SIZE + THREADS * SIZE, map.size());
+    }
+
+    @Test()
+    public void allConcurrentlyAddedNodesShouldBeReceived() throws Exception {
+        map = new ConcurrentOpenAddressingHashMap();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Void>> writers = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                writers.add(executor.submit(new Callable<Void>() {
+                    public Void call() {
+                        for (int i = thread; i < SIZE * 1000; i += THREADS) {
+                            map.put(i, -i);
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals(SIZE * 1000, map.size());
+        for (int i = 0; i < SIZE * 1000; i++) {
+            Assert.assertEquals(-i, map.get(i));
+        }
+    }
+
+    @Test()
+    public void concurrentAddToShouldNotLoseIncrements() throws Exception {
+        map = new ConcurrentOpenAddressingHashMap(1, 0.9f, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Void>> counters = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                counters.add(executor.submit(new Callable<Void>() {
+                    public Void call() {
+                        for (int i = 0; i < SIZE * 100; i++) {
+                            map.addTo(i % SIZE, 1);
+                            map.merge(-1, 1, Long::sum);
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> counter : counters) {
+                counter.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertTrue(map.size() == SIZE + 1);
+        Assert.assertEquals(THREADS * SIZE * 100L, map.get(-1));
+        for (int key = 0; key < SIZE; key++) {
+            Assert.assertEquals(THREADS * 100L, map.get(key));
+        }
+    }
+
+    @Test()
+    public void forEachShouldAllowActionToModifyMap() {
+        map = new ConcurrentOpenAddressingHashMap();
+        for (int i = 0; i < SIZE; i++) {
+            map.put(i, (long)i);
+        }
+
+        map.forEach((key, value) -> map.remove(key));
+        Assert.assertTrue(map.size() == 0);
+    }
+
+}
@@ -0,0 +1,214 @@
+package com.vodotiiets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Random;
+
+/**
+ * Created by Denys Vodotiiets.
+ */
+public class CuckooHashMapTest {
+
+    private CuckooHashMap map;
+    private final int SIZE = 100;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfCapacityIsNegative() {
+        map = new CuckooHashMap(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfLoadFactorIsGreaterThanOne() {
+        map = new CuckooHashMap(16, 1.5f);
+    }
+
+    @Test()
+    public void receivedValueShouldBeTheSame() {
+        map = new CuckooHashMap();
+        map.put(1, 2);
+        map.put(1, 3);
+        Assert.assertTrue(map.size() == 1);
+        Assert.assertEquals(3, map.get(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsIllegalStateExceptionIfTryGetWhenMapIsEmpty() {
+        map = new CuckooHashMap();
+        map.get(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsIllegalStateExceptionIfTryGetWhenMapHasNoSuchKey() {
+        map = new CuckooHashMap();
+        map.put(1, 2);
+        map.get(2);
+    }
+
+    @Test()
+    public void zeroKeyShouldBeStoredAndRemoved() {
+        map = new CuckooHashMap();
+        map.put(0, 5);
+        Assert.assertTrue(map.size() == 1);
+        Assert.assertEquals(5, map.get(0));
+        Assert.assertTrue(map.remove(0));
+        Assert.assertFalse(map.containsKey(0));
+        Assert.assertTrue(map.size() == 0);
+    }
+
+    @Test()
+    public void mapShouldGrowBeyondInitialCapacity() {
+        map = new CuckooHashMap(SIZE);
+        map.put(0, -1);
+
+        for (int i = 1; i < SIZE * 100; i++) {
+            map.put(i, (long)i);
+        }
+
+        Assert.assertTrue(map.size() == SIZE * 100);
+        Assert.assertEquals(-1, map.get(0));
+
+        for (int i = 1; i < SIZE * 100; i++) {
+            Assert.assertEquals((long)i, map.get(i));
+        }
+    }
+
+    @Test()
+    public void mapShouldBeFilledToLoadFactorWithoutGrowing() {
+        Random random = new Random(42);
+        map = new CuckooHashMap(SIZE * 100, 0.95f, HashMixer.randomSeed());
+        int capacity = map.capacity();
+
+        while (map.size() < (int)(capacity * 0.95f)) {
+            map.put(random.nextInt(), 1);
+        }
+
+        Assert.assertEquals(capacity, map.capacity());
+        Assert.assertTrue(map.stashSize() <= 4);
+    }
+
+    @Test()
+    public void mapShouldMatchReferenceUnderChurn() {
+        Random random = new Random(42);
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+        map = new CuckooHashMap(SIZE, 0.95f);
+
+        for (int i = 0; i < SIZE * 1000; i++) {
+            int key = random.nextInt(SIZE * 2) << 8;
+            if (random.nextBoolean()) {
+                map.put(key, (long)i);
+                reference.put(key, (long)i);
+            } else {
+                Assert.assertEquals(reference.remove(key) != null, map.remove(key));
+            }
+        }
+
+        Assert.assertEquals(reference.size(), map.size());
+        for (java.util.Map.Entry<Integer, Long> entry : reference.entrySet()) {
+            Assert.assertEquals((long)entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test()
+    public void getOrDefaultShouldNotThrowIfMapHasNoSuchKey() {
+        map = new CuckooHashMap();
+        map.put(1, 2);
+        map.put(0, 3);
+
+        Assert.assertEquals(-1, map.getOrDefault(2, -1));
+        Assert.assertEquals(3, map.getOrDefault(0, -1));
+        Assert.assertTrue(map.containsKey(1) && map.containsKey(0) && !map.containsKey(2));
+    }
+
+    @Test()
+    public void addToShouldCountLikeReference() {
+        Random random = new Random(42);
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+        map = new CuckooHashMap(SIZE);
+
+        for (int i = 0; i < SIZE * 100; i++) {
+            int key = random.nextInt(SIZE * 10);
+            long delta = random.nextInt(SIZE) - SIZE / 2;
+            Assert.assertEquals((long)reference.merge(key, delta, Long::sum), map.addTo(key, delta));
+        }
+
+        Assert.assertEquals(reference.size(), map.size());
+        for (java.util.Map.Entry<Integer, Long> entry : reference.entrySet()) {
+            Assert.assertEquals((long)entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test()
+    public void absentOperationsShouldNotReplaceValue() {
+        map = new CuckooHashMap(SIZE);
+
+        Assert.assertTrue(map.putIfAbsent(0, 1));
+        Assert.assertFalse(map.putIfAbsent(0, 2));
+        Assert.assertEquals(3, map.computeIfAbsent(1, key -> key + 2));
+        Assert.assertEquals(3, map.computeIfAbsent(1, key -> {
+            throw new AssertionError("Called for a present key");
+        }));
+        Assert.assertTrue(map.size() == 2);
+        Assert.assertEquals(1, map.get(0));
+    }
+
+    @Test()
+    public void mergeShouldCombineWithCurrentValue() {
+        map = new CuckooHashMap(SIZE);
+
+        Assert.assertEquals(5, map.merge(0, 5, Math::max));
+        Assert.assertEquals(7, map.merge(0, 7, Math::max));
+        Assert.assertEquals(7, map.merge(0, 6, Math::max));
+        Assert.assertEquals(-4, map.merge(SIZE, -4, Long::sum));
+        Assert.assertTrue(map.size() == 2);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void throwsConcurrentModificationExceptionIfMappingFunctionModifiesMap() {
+        map = new CuckooHashMap(SIZE);
+        map.computeIfAbsent(1, key -> {
+            map.put(2, 3);
+            return 4;
+        });
+    }
+
+    @Test()
+    public void cursorAndForEachShouldVisitEveryMapping() {
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+        java.util.HashMap<Integer, Long> visited = new java.util.HashMap<>();
+        map = new CuckooHashMap(SIZE, 0.95f);
+
+        for (int i = 0; i < SIZE * 10; i++) {
+            map.put(i * 7, (long)i);
+            reference.put(i * 7, (long)i);
+        }
+
+        map.forEach((key, value) -> Assert.assertNull(visited.put(key, value)));
+        Assert.assertEquals(reference, visited);
+
+        IntLongCursor cursor = map.cursor();
+        for (int pass = 0; pass < 2; pass++) {
+            visited.clear();
+            while (cursor.advance()) {
+                Assert.assertNull(visited.put(cursor.key(), cursor.value()));
+            }
+            Assert.assertFalse(cursor.advance());
+            Assert.assertEquals(reference, visited);
+            cursor.reset();
+        }
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void throwsConcurrentModificationExceptionIfMapIsModifiedDuringCursorWalk() {
+        map = new CuckooHashMap(SIZE);
+        map.put(1, 2);
+        map.put(2, 3);
+
+        IntLongCursor cursor = map.cursor();
+        while (cursor.advance()) {
+            map.remove(cursor.key());
+        }
+    }
+
+}
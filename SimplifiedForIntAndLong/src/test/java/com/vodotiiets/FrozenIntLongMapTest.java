@@ -0,0 +1,89 @@
+package com.vodotiiets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Created by Denys Vodotiiets.
+ */
+public class FrozenIntLongMapTest {
+
+    private FrozenIntLongMap map;
+    private final int SIZE = 100;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfArraysDifferInLength() {
+        map = FrozenIntLongMap.of(new int[SIZE], new long[SIZE - 1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfKeyIsRepeated() {
+        map = FrozenIntLongMap.of(new int[] {1, 2, 1}, new long[3]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsIllegalStateExceptionIfTryGetWhenMapIsEmpty() {
+        map = new OpenAddressingHashMap().freeze();
+        Assert.assertTrue(map.size() == 0 && !map.containsKey(0));
+        map.get(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsIllegalStateExceptionIfTryGetWhenMapHasNoSuchKey() {
+        map = FrozenIntLongMap.of(new int[] {1}, new long[] {2});
+        Assert.assertEquals(2, map.get(1));
+        map.get(2);
+    }
+
+    @Test()
+    public void frozenMapShouldContainAllValues() {
+        Random random = new Random(42);
+        OpenAddressingHashMap source = new OpenAddressingHashMap();
+        source.put(0, -1);
+        source.put(Integer.MIN_VALUE, Long.MIN_VALUE);
+
+        while (source.size() < SIZE * 1000) {
+            int key = random.nextInt();
+            source.put(key, key * 3L);
+        }
+
+        map = source.freeze();
+        Assert.assertTrue(map.size() == SIZE * 1000);
+        source.forEach((key, value) -> Assert.assertEquals(value, map.get(key)));
+
+        for (int i = 0; i < SIZE * 1000; i++) {
+            int key = random.nextInt();
+            Assert.assertEquals(source.getOrDefault(key, 7), map.getOrDefault(key, 7));
+        }
+    }
+
+    @Test()
+    public void cursorAndForEachShouldVisitEveryMapping() {
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+        java.util.HashMap<Integer, Long> visited = new java.util.HashMap<>();
+        ConcurrentOpenAddressingHashMap source = new ConcurrentOpenAddressingHashMap();
+
+        for (int i = 0; i < SIZE * 10; i++) {
+            source.put(i * 7, (long)i);
+            reference.put(i * 7, (long)i);
+        }
+
+        map = FrozenIntLongMap.copyOf(source);
+        map.forEach((key, value) -> Assert.assertNull(visited.put(key, value)));
+        Assert.assertEquals(reference, visited);
+
+        IntLongCursor cursor = map.cursor();
+        for (int pass = 0; pass < 2; pass++) {
+            visited.clear();
+            while (cursor.advance()) {
+                Assert.assertNull(visited.put(cursor.key(), cursor.value()));
+            }
+            Assert.assertFalse(cursor.advance());
+            Assert.assertEquals(reference, visited);
+            cursor.reset();
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.vodotiiets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Tests of the <tt>HashMap</tt> contract, run by the test of every implementation.
+ *
+ * Created by Denys Vodotiiets.
+ */
+public abstract class HashMapTest {
+
+    private final int SIZE = 100;
+
+    /**
+     * Returns an empty map able to hold the specified number of mappings
+     * without growing, which the test of the implementation closes.
+     */
+    abstract HashMap newMap(int initialCapacity) throws IOException;
+
+    @Test()
+    public void getOrDefaultShouldNotThrowIfMapHasNoSuchKey() throws IOException {
+        HashMap map = newMap(SIZE);
+        Assert.assertEquals(-1, map.getOrDefault(1, -1));
+        Assert.assertFalse(map.containsKey(1) || map.containsKey(0));
+
+        map.put(1, 2);
+        map.put(0, 3);
+        Assert.assertEquals(2, map.getOrDefault(1, -1));
+        Assert.assertEquals(3, map.getOrDefault(0, -1));
+        Assert.assertEquals(-1, map.getOrDefault(2, -1));
+        Assert.assertTrue(map.containsKey(1) && map.containsKey(0) && !map.containsKey(2));
+    }
+
+    @Test()
+    public void addToShouldCountLikeReference() throws IOException {
+        Random random = new Random(42);
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+        HashMap map = newMap(SIZE);
+
+        for (int i = 0; i < SIZE * 100; i++) {
+            int key = random.nextInt(SIZE * 10);
+            long delta = random.nextInt(SIZE) - SIZE / 2;
+            Assert.assertEquals((long)reference.merge(key, delta, Long::sum), map.addTo(key, delta));
+        }
+
+        Assert.assertEquals(reference.size(), map.size());
+        for (java.util.Map.Entry<Integer, Long> entry : reference.entrySet()) {
+            Assert.assertEquals((long)entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test()
+    public void absentOperationsShouldNotReplaceValue() throws IOException {
+        HashMap map = newMap(SIZE);
+
+        Assert.assertTrue(map.putIfAbsent(0, 1));
+        Assert.assertFalse(map.putIfAbsent(0, 2));
+        Assert.assertEquals(3, map.computeIfAbsent(1, key -> key + 2));
+        Assert.assertEquals(3, map.computeIfAbsent(1, key -> {
+            throw new AssertionError("Called for a present key");
+        }));
+        Assert.assertTrue(map.size() == 2);
+        Assert.assertEquals(1, map.get(0));
+    }
+
+    @Test()
+    public void mergeShouldCombineWithCurrentValue() throws IOException {
+        HashMap map = newMap(SIZE);
+
+        Assert.assertEquals(5, map.merge(0, 5, Math::max));
+        Assert.assertEquals(7, map.merge(0, 7, Math::max));
+        Assert.assertEquals(7, map.merge(0, 6, Math::max));
+        Assert.assertEquals(-4, map.merge(SIZE, -4, Long::sum));
+        Assert.assertTrue(map.size() == 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfMappingFunctionIsNull() throws IOException {
+        HashMap map = newMap(SIZE);
+        map.computeIfAbsent(1, null);
+    }
+
+    @Test()
+    public void cursorAndForEachShouldVisitEveryMapping() throws IOException {
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+        java.util.HashMap<Integer, Long> visited = new java.util.HashMap<>();
+        HashMap map = newMap(SIZE);
+
+        for (int i = 0; i < SIZE * 10; i++) {
+            map.put(i * 7, (long)i);
+            reference.put(i * 7, (long)i);
+        }
+
+        map.forEach((key, value) -> Assert.assertNull(visited.put(key, value)));
+        Assert.assertEquals(reference, visited);
+
+        IntLongCursor cursor = map.cursor();
+        for (int pass = 0; pass < 2; pass++) {
+            visited.clear();
+            while (cursor.advance()) {
+                Assert.assertNull(visited.put(cursor.key(), cursor.value()));
+            }
+            Assert.assertFalse(cursor.advance());
+            Assert.assertEquals(reference, visited);
+            cursor.reset();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsIllegalStateExceptionIfCursorIsNotOnMapping() throws IOException {
+        HashMap map = newMap(SIZE);
+        map.cursor().key();
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.vodotiiets;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Created by Denys Vodotiiets.
+ */
+public class MappedOpenAddressingHashMapTest extends AbstractOpenAddressingHashMapTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MappedOpenAddressingHashMap map;
+    private Path file;
+    private final int SIZE = 100;
+
+    @Before
+    public void createFile() {
+        file = folder.getRoot().toPath().resolve("map.oahm");
+    }
+
+    @After
+    public void closeMap() throws IOException {
+        if (map != null) {
+            map.close();
+        }
+    }
+
+    MappedOpenAddressingHashMap newMap(int initialCapacity) throws IOException {
+        return map = new MappedOpenAddressingHashMap(file, initialCapacity, 0.75f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfCapacityIsNegative() throws IOException {
+        map = new MappedOpenAddressingHashMap(file, -1, 0.75f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfFileIsNotAMap() throws IOException {
+        Files.write(file, new byte[SIZE]);
+        map = new MappedOpenAddressingHashMap(file);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfStoredSizeExceedsCapacity() throws IOException {
+        map = new MappedOpenAddressingHashMap(file);
+        map.put(1, 2);
+        map.close();
+
+        writeHeaderInt(16, Integer.MAX_VALUE);
+        map = new MappedOpenAddressingHashMap(file);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfStoredFreeKeyFlagIsIllegal() throws IOException {
+        map = new MappedOpenAddressingHashMap(file);
+        map.put(1, 2);
+        map.close();
+
+        writeHeaderInt(20, 2);
+        map = new MappedOpenAddressingHashMap(file);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfStoredCapacityIsNotMaskable() throws IOException {
+        map = new MappedOpenAddressingHashMap(file, SIZE, 0.75f, IndexFunction.FAST_RANGE, HashMixer.SPREAD, 0);
+        map.put(1, 2);
+        map.close();
+
+        writeHeaderInt(32, IndexFunction.POWER_OF_TWO_MASK.ordinal());
+        map = new MappedOpenAddressingHashMap(file);
+    }
+
+    @Test()
+    public void receivedValueShouldBeTheSame() throws IOException {
+        map = new MappedOpenAddressingHashMap(file);
+        map.put(1, 2);
+        map.put(1, 3);
+        Assert.assertTrue(map.size() == 1);
+        Assert.assertEquals(3, map.get(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsIllegalStateExceptionIfTryGetWhenMapHasNoSuchKey() throws IOException {
+        map = new MappedOpenAddressingHashMap(file);
+        map.put(1, 2);
+        map.get(2);
+    }
+
+    @Test()
+    public void reopenedMapShouldContainAllValues() throws IOException {
+        map = new MappedOpenAddressingHashMap(file, SIZE, 0.9f, IndexFunction.FAST_RANGE,
+                HashMixer.MURMUR3, HashMixer.randomSeed());
+        map.put(0, -1);
+
+        for (int i = 1; i < SIZE * 100; i++) {
+            map.put(i, (long)i);
+        }
+        map.remove(SIZE);
+        map.close();
+
+        map = new MappedOpenAddressingHashMap(file);
+        Assert.assertTrue(map.size() == SIZE * 100 - 1);
+        Assert.assertEquals(-1, map.get(0));
+        Assert.assertFalse(map.remove(SIZE));
+
+        for (int i = 1; i < SIZE * 100; i++) {
+            if (i != SIZE) {
+                Assert.assertEquals((long)i, map.get(i));
+            }
+        }
+    }
+
+    @Test()
+    public void resizeShouldNotLeaveTemporaryFiles() throws IOException {
+        map = new MappedOpenAddressingHashMap(file);
+
+        for (int i = 0; i < SIZE * 10; i++) {
+            map.put(i, (long)i);
+        }
+
+        Assert.assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test()
+    public void mapShouldMatchReferenceUnderChurn() throws IOException {
+        Random random = new Random(42);
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+        map = new MappedOpenAddressingHashMap(file, SIZE, 0.9f);
+
+        for (int i = 0; i < SIZE * 1000; i++) {
+            int key = random.nextInt(SIZE * 2) << 8;
+            if (random.nextBoolean()) {
+                map.put(key, (long)i);
+                reference.put(key, (long)i);
+            } else {
+                Assert.assertEquals(reference.remove(key) != null, map.remove(key));
+            }
+        }
+        map.force();
+
+        Assert.assertEquals(reference.size(), map.size());
+        for (java.util.Map.Entry<Integer, Long> entry : reference.entrySet()) {
+            Assert.assertEquals((long)entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsIllegalStateExceptionIfTryGetWhenMapIsClosed() throws IOException {
+        map = new MappedOpenAddressingHashMap(file);
+        map.put(1, 2);
+        map.close();
+        map.get(1);
+    }
+
+    private void writeHeaderInt(int offset, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, value), offset);
+        }
+    }
+
+}
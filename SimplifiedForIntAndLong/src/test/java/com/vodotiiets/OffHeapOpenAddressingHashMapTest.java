@@ -0,0 +1,135 @@
+package com.vodotiiets;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Created by Denys Vodotiiets.
+ */
+public class OffHeapOpenAddressingHashMapTest extends AbstractOpenAddressingHashMapTest {
+
+    private OffHeapOpenAddressingHashMap map;
+    private final int SIZE = 100;
+
+    @After
+    public void closeMap() {
+        if (map != null) {
+            map.close();
+        }
+    }
+
+    OffHeapOpenAddressingHashMap newMap(int initialCapacity) {
+        return map = new OffHeapOpenAddressingHashMap(initialCapacity);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfCapacityIsNegative() {
+        map = new OffHeapOpenAddressingHashMap(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfLoadFactorIsGreaterThanOne() {
+        map = new OffHeapOpenAddressingHashMap(16, 1.5f);
+    }
+
+    @Test()
+    public void receivedValueShouldBeTheSame() {
+        map = new OffHeapOpenAddressingHashMap();
+        map.put(1, 2);
+        map.put(1, 3);
+        Assert.assertTrue(map.size() == 1);
+        Assert.assertEquals(3, map.get(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsIllegalStateExceptionIfTryGetWhenMapHasNoSuchKey() {
+        map = new OffHeapOpenAddressingHashMap();
+        map.put(1, 2);
+        map.get(2);
+    }
+
+    @Test()
+    public void zeroKeyShouldBeStored() {
+        map = new OffHeapOpenAddressingHashMap();
+        map.put(0, 5);
+        Assert.assertTrue(map.size() == 1);
+        Assert.assertEquals(5, map.get(0));
+    }
+
+    @Test()
+    public void mapShouldGrowBeyondInitialCapacity() {
+        map = new OffHeapOpenAddressingHashMap(SIZE);
+        map.put(0, -1);
+
+        for (int i = 1; i < SIZE * 100; i++) {
+            map.put(i, (long)i);
+        }
+
+        Assert.assertTrue(map.size() == SIZE * 100);
+        Assert.assertEquals(-1, map.get(0));
+
+        for (int i = 1; i < SIZE * 100; i++) {
+            Assert.assertEquals((long)i, map.get(i));
+        }
+    }
+
+    @Test()
+    public void allValuesShouldBeReceivedWithEveryMixer() {
+        for (IndexFunction indexFunction : IndexFunction.values()) {
+            for (HashMixer mixer : HashMixer.values()) {
+                map = new OffHeapOpenAddressingHashMap(SIZE, 0.75f, indexFunction, mixer, HashMixer.randomSeed());
+
+                for (int i = 0; i < SIZE * 10; i++) {
+                    map.put(i << 16, (long)i);
+                }
+
+                for (int i = 0; i < SIZE * 10; i++) {
+                    Assert.assertEquals((long)i, map.get(i << 16));
+                }
+                map.close();
+            }
+        }
+    }
+
+    @Test()
+    public void mapShouldMatchReferenceUnderChurn() {
+        Random random = new Random(42);
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+        map = new OffHeapOpenAddressingHashMap(SIZE, 0.9f);
+
+        for (int i = 0; i < SIZE * 1000; i++) {
+            int key = random.nextInt(SIZE * 2) << 8;
+            if (random.nextBoolean()) {
+                map.put(key, (long)i);
+                reference.put(key, (long)i);
+            } else {
+                Assert.assertEquals(reference.remove(key) != null, map.remove(key));
+            }
+        }
+
+        Assert.assertEquals(reference.size(), map.size());
+        for (java.util.Map.Entry<Integer, Long> entry : reference.entrySet()) {
+            Assert.assertEquals((long)entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void throwsIllegalStateExceptionIfTryPutWhenMapIsClosed() {
+        map = new OffHeapOpenAddressingHashMap();
+        map.close();
+        map.put(1, 2);
+    }
+
+    @Test()
+    public void closedMapShouldBeEmptyAndCloseTwice() {
+        map = new OffHeapOpenAddressingHashMap();
+        map.put(1, 2);
+        map.close();
+        map.close();
+        Assert.assertTrue(map.size() == 0);
+    }
+
+}
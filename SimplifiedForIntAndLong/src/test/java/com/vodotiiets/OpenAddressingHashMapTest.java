@@ -1,16 +1,30 @@
 package com.vodotiiets;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.Channels;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.LongStream;
+
 /**
  * Created by Denys Vodotiiets.
  */
-public class OpenAddressingHashMapTest {
+public class OpenAddressingHashMapTest extends AbstractOpenAddressingHashMapTest {
 
     private OpenAddressingHashMap map;
     private final int SIZE = 100;
 
+    OpenAddressingHashMap newMap(int initialCapacity) {
+        return new OpenAddressingHashMap(initialCapacity);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void throwsIllegalArgumentExceptionIfCapacityIsNegative() {
         map = new OpenAddressingHashMap(-1);
@@ -67,13 +81,300 @@ public class OpenAddressingHashMapTest {
         map.get(2);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfLoadFactorIsNotPositive() {
+        map = new OpenAddressingHashMap(16, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfLoadFactorIsGreaterThanOne() {
+        map = new OpenAddressingHashMap(16, 1.5f);
+    }
+
+    @Test()
+    public void mapShouldGrowBeyondInitialCapacity() {
+        map = new OpenAddressingHashMap(SIZE);
+
+        for (int i = 0; i < SIZE * 100; i++) {
+            map.put(i, (long)i);
+        }
+
+        Assert.assertTrue(map.size() == SIZE * 100);
+
+        for (int i = 0; i < SIZE * 100; i++) {
+            Assert.assertEquals((long)i, map.get(i));
+        }
+    }
+
+    @Test()
+    public void mapWithFullLoadFactorShouldGrow() {
+        map = new OpenAddressingHashMap(1, 1.0f);
+
+        for (int i = 1; i <= SIZE; i++) {
+            map.put(i << 16, (long)i);
+        }
+
+        for (int i = 1; i <= SIZE; i++) {
+            Assert.assertEquals((long)i, map.get(i << 16));
+        }
+    }
+
+    @Test()
+    public void zeroKeyShouldBeStored() {
+        map = new OpenAddressingHashMap();
+        map.put(0, 5);
+        Assert.assertTrue(map.size() == 1);
+        Assert.assertEquals(5, map.get(0));
+    }
+
     @Test(expected = IllegalStateException.class)
-    public void throwsIllegalStateExceptionIfTryPutWhenMapIsFull() {
+    public void throwsIllegalStateExceptionIfTryGetZeroKeyWhenMapHasNoSuchKey() {
+        map = new OpenAddressingHashMap();
+        map.put(1, 2);
+        map.get(0);
+    }
+
+    @Test()
+    public void allValuesShouldBeReceived() {
         map = new OpenAddressingHashMap(SIZE);
 
-        for (int i = 0; i < SIZE * 3 / 2 + 2; i++) {
+        for (int i = -SIZE / 2; i < SIZE / 2; i++) {
+            map.put(i * 31, (long)i);
+        }
+
+        for (int i = -SIZE / 2; i < SIZE / 2; i++) {
+            Assert.assertEquals((long)i, map.get(i * 31));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfIndexFunctionIsNull() {
+        map = new OpenAddressingHashMap(16, 0.75f, null);
+    }
+
+    @Test()
+    public void allValuesShouldBeReceivedWithFastRange() {
+        map = new OpenAddressingHashMap(SIZE - 1, 0.9f, IndexFunction.FAST_RANGE);
+
+        for (int i = 0; i < SIZE * 100; i++) {
+            map.put(i * 1024, (long)i);
+        }
+
+        Assert.assertTrue(map.size() == SIZE * 100);
+
+        for (int i = 0; i < SIZE * 100; i++) {
+            Assert.assertEquals((long)i, map.get(i * 1024));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfMixerIsNull() {
+        map = new OpenAddressingHashMap(16, 0.75f, IndexFunction.POWER_OF_TWO_MASK, null, 0);
+    }
+
+    @Test()
+    public void allValuesShouldBeReceivedWithEveryMixer() {
+        for (IndexFunction indexFunction : IndexFunction.values()) {
+            for (HashMixer mixer : HashMixer.values()) {
+                map = new OpenAddressingHashMap(SIZE, 0.75f, indexFunction, mixer, HashMixer.randomSeed());
+
+                for (int i = 0; i < SIZE * 10; i++) {
+                    map.put(i << 16, (long)i);
+                }
+
+                for (int i = 0; i < SIZE * 10; i++) {
+                    Assert.assertEquals((long)i, map.get(i << 16));
+                }
+            }
+        }
+    }
+
+    @Test()
+    public void removedNodeShouldNotBeReceived() {
+        map = new OpenAddressingHashMap();
+        map.put(1, 2);
+        map.put(0, 3);
+        Assert.assertTrue(map.remove(1) && map.remove(0) && map.size() == 0);
+        Assert.assertFalse(map.remove(1) || map.remove(0));
+    }
+
+    @Test()
+    public void mapShouldMatchReferenceUnderChurn() {
+        Random random = new Random(42);
+        java.util.HashMap<Integer, Long> reference = new java.util.HashMap<>();
+
+        for (IndexFunction indexFunction : IndexFunction.values()) {
+            map = new OpenAddressingHashMap(SIZE, 0.9f, indexFunction, HashMixer.SPREAD, 0);
+            reference.clear();
+
+            for (int i = 0; i < SIZE * 1000; i++) {
+                int key = random.nextInt(SIZE * 2) << 8;
+                if (random.nextBoolean()) {
+                    map.put(key, (long)i);
+                    reference.put(key, (long)i);
+                } else {
+                    Assert.assertEquals(reference.remove(key) != null, map.remove(key));
+                }
+            }
+
+            Assert.assertEquals(reference.size(), map.size());
+            for (java.util.Map.Entry<Integer, Long> entry : reference.entrySet()) {
+                Assert.assertEquals((long)entry.getValue(), map.get(entry.getKey()));
+            }
+        }
+    }
+
+    @Test()
+    public void putAllShouldAddAllValues() {
+        map = new OpenAddressingHashMap();
+        int[] keys = new int[SIZE * 10];
+        long[] values = new long[SIZE * 10];
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (i % (SIZE * 5)) * 31;
+            values[i] = i;
+        }
+        map.putAll(keys, values);
+
+        Assert.assertTrue(map.size() == SIZE * 5);
+        for (int i = 0; i < SIZE * 5; i++) {
+            Assert.assertEquals((long)(i + SIZE * 5), map.get(i * 31));
+        }
+    }
+
+    @Test()
+    public void getAllShouldReportMissingKeys() {
+        map = new OpenAddressingHashMap(SIZE);
+        int[] keys = new int[SIZE * 2];
+        long[] values = new long[SIZE * 2];
+        long[] missing = {-1, -1, -1, -1, -1};
+
+        for (int i = 0; i < SIZE; i++) {
+            map.put(i << 16, (long)i + 1);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i << 16;
+        }
+
+        Assert.assertEquals(SIZE, map.getAll(keys, values, missing));
+        for (int i = 0; i < keys.length; i++) {
+            Assert.assertEquals(i >= SIZE, (missing[i / 64] & 1L << i) != 0);
+            Assert.assertEquals(i < SIZE ? i + 1 : 0, values[i]);
+        }
+        Assert.assertEquals(-1, missing[4]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsIllegalArgumentExceptionIfMissingBitmapIsTooShort() {
+        map = new OpenAddressingHashMap();
+        map.getAll(new int[SIZE], new long[SIZE], new long[1]);
+    }
+
+    @Test()
+    public void snapshotShouldRestoreAllValues() throws IOException {
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            for (IndexFunction indexFunction : IndexFunction.values()) {
+                map = new OpenAddressingHashMap(SIZE, 0.9f, indexFunction, HashMixer.MURMUR3, HashMixer.randomSeed());
+                map.put(0, Long.MIN_VALUE);
+
+                for (int i = 1; i < SIZE * 10; i++) {
+                    map.put(i * 31, (long)-i);
+                }
+
+                OpenAddressingHashMap restored = OpenAddressingHashMap.readSnapshot(
+                        Channels.newChannel(new ByteArrayInputStream(snapshot(map, format))));
+
+                Assert.assertTrue(restored.size() == SIZE * 10);
+                Assert.assertEquals(Long.MIN_VALUE, restored.get(0));
+                for (int i = 1; i < SIZE * 10; i++) {
+                    Assert.assertEquals((long)-i, restored.get(i * 31));
+                }
+                Assert.assertArrayEquals(snapshot(map, SnapshotFormat.RAW), snapshot(restored, SnapshotFormat.RAW));
+            }
+        }
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void throwsStreamCorruptedExceptionIfSnapshotIsIllegal() throws IOException {
+        map = new OpenAddressingHashMap();
+        map.put(1, 2);
+        byte[] snapshot = snapshot(map, SnapshotFormat.SPARSE);
+        snapshot[0]++;
+        OpenAddressingHashMap.readSnapshot(Channels.newChannel(new ByteArrayInputStream(snapshot)));
+    }
+
+    private static byte[] snapshot(OpenAddressingHashMap map, SnapshotFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        map.writeSnapshot(Channels.newChannel(out), format);
+        return out.toByteArray();
+    }
+
+    @Test()
+    public void parallelStreamsShouldScanEveryMapping() {
+        map = new OpenAddressingHashMap(SIZE);
+
+        for (int i = 0; i < SIZE * 1000; i++) {
+            map.put(i, i * 2L);
+        }
+
+        Assert.assertEquals(SIZE * 1000, map.slotStream(true).count());
+        Assert.assertEquals((long)(SIZE * 1000 - 1) * SIZE * 1000, map.valueStream(true).sum());
+        Assert.assertEquals(SIZE, map.keyStream(true).filter(key -> key >= SIZE && key < SIZE * 2).count());
+        Assert.assertArrayEquals(map.keyStream(false).toArray(), map.keyStream(true).toArray());
+    }
+
+    @Test()
+    public void splitSpliteratorsShouldCoverTheTable() {
+        map = new OpenAddressingHashMap(SIZE);
+
+        for (int i = 0; i < SIZE; i++) {
+            map.put(i, (long)i);
+        }
+
+        Spliterator.OfInt suffix = map.slotStream(false).spliterator();
+        Assert.assertEquals(SIZE, suffix.getExactSizeIfKnown());
+
+        Spliterator.OfInt prefix = suffix.trySplit();
+        Assert.assertEquals(SIZE, prefix.estimateSize() + suffix.estimateSize());
+        Assert.assertEquals(-1, prefix.getExactSizeIfKnown());
+
+        long[] count = new long[1];
+        prefix.forEachRemaining((int slot) -> count[0]++);
+        suffix.forEachRemaining((int slot) -> count[0]++);
+        Assert.assertEquals(SIZE, count[0]);
+    }
+
+    @Test()
+    public void statisticsShouldDescribeOccupancy() {
+        map = new OpenAddressingHashMap(SIZE, 0.75f);
+        for (int i = 0; i < SIZE; i++) {
             map.put(i, (long)i);
         }
+
+        MapStatistics statistics = map.statistics();
+        Assert.assertTrue(statistics.getSize() == SIZE);
+        Assert.assertEquals((double)SIZE / statistics.getCapacity(), statistics.getLoadFactor(), 0);
+        Assert.assertTrue(statistics.getMaxClusterLength() > 0 && statistics.getMaxClusterLength() < SIZE);
+        Assert.assertTrue(map.statisticsMXBean().getSize() == SIZE);
+    }
+
+    @Test()
+    public void probeLengthsShouldBeRecordedInStatisticsMode() {
+        map = new OpenAddressingHashMap(1, 0.75f);
+        Assume.assumeTrue(map.statistics().isEnabled());
+
+        for (int i = 0; i < SIZE; i++) {
+            map.put(i, (long)i);
+        }
+        for (int i = 0; i < SIZE * 2; i++) {
+            map.getOrDefault(i, -1);
+        }
+
+        MapStatistics statistics = map.statistics();
+        Assert.assertEquals(SIZE, LongStream.of(statistics.getPutMissProbeLengths()).sum());
+        Assert.assertEquals(SIZE, LongStream.of(statistics.getGetHitProbeLengths()).sum());
+        Assert.assertEquals(SIZE, LongStream.of(statistics.getGetMissProbeLengths()).sum());
+        Assert.assertTrue(statistics.getResizeCount() > 0);
     }
 
-}
\ No newline at end of file
+}